@@ -0,0 +1,76 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import red_black_tree.ArrayRedBlackTree;
+import basic_geometric_entities.LineStore;
+import basic_geometric_entities.SweepPosition;
+
+/**
+ * The operations of RedBlackTreeBenchmark on a status stored in arrays.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayRedBlackTreeBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int lines;
+
+	ArrayRedBlackTree tree;
+	int[] order;
+	int next;
+
+	@Setup
+	public void setup() {
+		SweepPosition sweep = new SweepPosition(0);
+		LineStore store = new LineStore(this.lines);
+		Random random = new Random(7);
+		for (int i = 0; i < this.lines; i++)
+			store.set(i, 0, random.nextDouble() - 0.5, random.nextDouble()
+					* this.lines, -1, 1);
+
+		this.tree = new ArrayRedBlackTree(store, sweep, this.lines);
+		for (int i = 0; i < this.lines; i++)
+			this.tree.insert(i);
+
+		// Lines are visited in a random order.
+		this.order = new int[1 << 16];
+		for (int i = 0; i < this.order.length; i++)
+			this.order[i] = random.nextInt(this.lines);
+	}
+
+	int nextLine() {
+		this.next = (this.next + 1) & (this.order.length - 1);
+		return this.order[this.next];
+	}
+
+	// Removes a line and inserts it back, leaving the tree as it was.
+	@Benchmark
+	public int removeAdd() {
+		int line = nextLine();
+		this.tree.remove(this.tree.node(line));
+		return this.tree.insert(line);
+	}
+
+	@Benchmark
+	public int successor() {
+		return this.tree.successor(this.tree.node(nextLine()));
+	}
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import input.InputGenerator;
+import basic_geometric_entities.Line;
+import events.Event;
+import events.EventQueue;
+import events.EventType;
+
+/**
+ * Adding and removing intersection events on a queue holding a given number
+ * of pending events. Each operation adds one event ahead of the queue head
+ * and removes the head, as the sweep does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventQueueBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int pending;
+
+	EventQueue queue;
+	Line[] lines;
+	Random random;
+
+	@Setup
+	public void setup() {
+		this.lines = new InputGenerator(1024, 7).generate();
+		this.random = new Random(7);
+		this.queue = new EventQueue(new Event());
+		while (this.queue.size() < this.pending)
+			this.queue.add(nextEvent(0));
+	}
+
+	Event nextEvent(double from) {
+		int i = this.random.nextInt(this.lines.length - 1);
+		return new Event(from + this.random.nextDouble() * this.pending,
+				EventType.INTERSECTION, this.lines[i], this.lines[i + 1]);
+	}
+
+	@Benchmark
+	public Event addRemove() {
+		Event head = this.queue.remove();
+		this.queue.add(nextEvent(head.x));
+		return head;
+	}
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import input.InputGenerator;
+import input.LineConstructor;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading generated inputs: the memory-mapped parser on one thread and on
+ * several, against the Scanner it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class InputParserBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int curves;
+
+	String input;
+
+	@Setup(Level.Trial)
+	public void writeInput() throws IOException {
+		InputGenerator generator = new InputGenerator(this.curves, 7);
+		File file = File.createTempFile("benchmark", ".txt");
+		file.deleteOnExit();
+		InputGenerator.write(file.getPath(), generator.generate(),
+				new String[] { "run" });
+		this.input = file.getPath();
+	}
+
+	@Benchmark
+	public LineConstructor parse() {
+		return new LineConstructor(this.input, 1);
+	}
+
+	@Benchmark
+	public LineConstructor parseParallel() {
+		return new LineConstructor(this.input, Runtime.getRuntime()
+				.availableProcessors());
+	}
+
+	@Benchmark
+	public double scanner() throws IOException {
+		Scanner sc = new Scanner(new FileReader(this.input));
+		double sum = 0;
+		for (int i = 5 * sc.nextInt(); i > 0; i--)
+			sum += sc.nextDouble();
+		sc.close();
+		return sum;
+	}
+}
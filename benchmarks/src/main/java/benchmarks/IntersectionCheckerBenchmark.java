@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import input.InputGenerator;
+import utilities.IntersectionChecker;
+import utilities.Pair;
+import basic_geometric_entities.Line;
+import basic_geometric_entities.LineStore;
+
+/**
+ * Intersections of random pairs of overlapping curves, one pair per
+ * operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionCheckerBenchmark {
+
+	static final int PAIRS = 1 << 12;
+
+	Line[] lines;
+	LineStore store;
+	double[] xs = new double[2];
+	int next;
+
+	@Setup
+	public void setup() {
+		// A dense input, so that most pairs overlap.
+		InputGenerator generator = new InputGenerator(2 * PAIRS, 7);
+		generator.span = PAIRS;
+		this.lines = generator.generate();
+		this.store = new LineStore(2 * PAIRS);
+		for (Line l : this.lines)
+			this.store.add(l);
+	}
+
+	int nextPair() {
+		this.next = (this.next + 2) & (2 * PAIRS - 1);
+		return this.next;
+	}
+
+	@Benchmark
+	public int intersections() {
+		int i = nextPair();
+		return IntersectionChecker.intersections(this.store, i, i + 1, this.xs);
+	}
+
+	@Benchmark
+	public Pair areIntersectingAt() {
+		int i = nextPair();
+		return IntersectionChecker.areIntersectingAt(this.lines[i],
+				this.lines[i + 1]);
+	}
+
+	@Benchmark
+	public void legacyAreIntersectingAt(Blackhole bh) {
+		int i = nextPair();
+		try {
+			bh.consume(LegacyIntersectionChecker.areIntersectingAt(
+					this.lines[i], this.lines[i + 1]));
+		} catch (RuntimeException e) {
+			bh.consume(e); // It throws for mixed pairs that do not meet.
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import output.BinarySink;
+import output.TextSink;
+
+/**
+ * Writing the lines of "step -p" for many events: the sinks against the
+ * printf call they replaced, all to a discarding stream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputSinkBenchmark {
+	static final int EVENTS = 100000;
+
+	char[] types = new char[EVENTS];
+	double[] xs = new double[EVENTS];
+	int[] counts = new int[EVENTS];
+
+	@Setup(Level.Trial)
+	public void generate() {
+		Random random = new Random(5);
+		for (int i = 0; i < EVENTS; i++) {
+			this.types[i] = "SEI".charAt(random.nextInt(3));
+			this.xs[i] = (random.nextDouble() - 0.5) * 2000;
+			this.counts[i] = random.nextInt(3);
+		}
+	}
+
+	@Benchmark
+	public void printf() {
+		PrintStream out = new PrintStream(new BufferedOutputStream(
+				OutputStream.nullOutputStream(), 1 << 16));
+		for (int i = 0; i < EVENTS; i++)
+			out.printf("event: %1c %6.2f %1d\n", this.types[i], this.xs[i],
+					this.counts[i]);
+		out.flush();
+	}
+
+	@Benchmark
+	public void text() {
+		TextSink sink = new TextSink(OutputStream.nullOutputStream());
+		for (int i = 0; i < EVENTS; i++)
+			sink.event(this.types[i], this.xs[i], this.counts[i]);
+		sink.flush();
+	}
+
+	@Benchmark
+	public void binary() {
+		BinarySink sink = new BinarySink(OutputStream.nullOutputStream());
+		for (int i = 0; i < EVENTS; i++)
+			sink.event(this.types[i], this.xs[i], this.counts[i]);
+		sink.flush();
+	}
+}
@@ -0,0 +1,93 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import red_black_tree.RedBlackTree;
+import basic_geometric_entities.LineInstance;
+import basic_geometric_entities.LineStore;
+import basic_geometric_entities.SweepPosition;
+
+/**
+ * Operations on a sweep line status holding a given number of lines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedBlackTreeBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int lines;
+
+	RedBlackTree root;
+	LineInstance[] instances;
+	int[] order;
+	int next;
+
+	@Setup
+	public void setup() {
+		SweepPosition sweep = new SweepPosition(0);
+		LineStore store = new LineStore(this.lines);
+		Random random = new Random(7);
+		for (int i = 0; i < this.lines; i++)
+			store.set(i, 0, random.nextDouble() - 0.5, random.nextDouble()
+					* this.lines, -1, 1);
+
+		this.root = new RedBlackTree(this.lines);
+		this.instances = new LineInstance[this.lines];
+		for (int i = 0; i < this.lines; i++) {
+			this.instances[i] = new LineInstance(store, i, sweep);
+			this.root = this.root.root().add(this.instances[i]);
+		}
+
+		// Lines are visited in a random order.
+		this.order = new int[1 << 16];
+		for (int i = 0; i < this.order.length; i++)
+			this.order[i] = random.nextInt(this.lines);
+	}
+
+	LineInstance nextLine() {
+		this.next = (this.next + 1) & (this.order.length - 1);
+		return this.instances[this.order[this.next]];
+	}
+
+	// Removes a line and inserts it back, leaving the tree as it was.
+	@Benchmark
+	public RedBlackTree removeAdd() {
+		LineInstance line = nextLine();
+		this.root = this.root.root().remove(line);
+		this.root = this.root.root().add(line);
+		return this.root;
+	}
+
+	@Benchmark
+	public LineInstance getSuccessorLine() {
+		RedBlackTree root = this.root.root();
+		return root.getSuccessorLine(root, nextLine());
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 10)
+	public RedBlackTree refreshKeys() {
+		this.root = this.root.refreshKeys(this.root.root(), 0.0);
+		return this.root;
+	}
+}
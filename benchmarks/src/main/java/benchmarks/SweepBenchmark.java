@@ -0,0 +1,95 @@
+package benchmarks;
+
+import input.CommandType;
+import input.InputGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eventhandler.Executor;
+
+/**
+ * End-to-end RUN command over generated inputs. Besides the time per run,
+ * the events counter reports the handled events per second.
+ *
+ * Every run reads its input again, which is not measured but adds to the
+ * wall time; the default sizes keep a fork within minutes. Larger ones can
+ * be given with -p (e.g. -p curves=1000000 -p density=1), with -Xmx to
+ * match.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SweepBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int curves;
+
+	// Intersections per curve.
+	@Param({ "1", "10" })
+	public int density;
+
+	// Threads of the RUN; above 1 it sweeps slabs in parallel.
+	@Param({ "1" })
+	public int threads;
+
+	// Keep the status in arrays (see Plane.useArrayStatus).
+	@Param({ "false", "true" })
+	public boolean arrayStatus;
+
+	String input;
+	Executor executor;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Counters {
+		public long events;
+		public long intersections;
+	}
+
+	@Setup(Level.Trial)
+	public void writeInput() throws IOException {
+		InputGenerator generator = new InputGenerator(this.curves, 7);
+		generator.k = (long) this.curves * this.density;
+		File file = File.createTempFile("benchmark", ".txt");
+		file.deleteOnExit();
+		InputGenerator.write(file.getPath(), generator.generate(),
+				new String[] { "run" });
+		this.input = file.getPath();
+	}
+
+	// A run consumes the plane, so each one starts from a fresh read.
+	@Setup(Level.Invocation)
+	public void readInput() {
+		this.executor = new Executor(this.input);
+		this.executor.parallelism = this.threads;
+		if (this.arrayStatus)
+			this.executor.plane.useArrayStatus();
+	}
+
+	@Benchmark
+	public void run(Counters counters) {
+		this.executor.handleCommand(CommandType.RUN);
+		int found = this.executor.plane.intersectionNo;
+		counters.intersections += found;
+		counters.events += 2 * this.executor.plane.lines.size() + found;
+	}
+}
@@ -0,0 +1,22 @@
+package basic_geometric_entities;
+
+// A reported intersection: the point and the ids of the two lines.
+public class Intersection {
+	public double x;
+	public double y;
+	public int lineId1;
+	public int lineId2;
+
+	public Intersection(double x, double y, int lineId1, int lineId2) {
+		this.x = x;
+		this.y = y;
+		this.lineId1 = lineId1;
+		this.lineId2 = lineId2;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + this.x + ", " + this.y + ") " + this.lineId1 + " "
+				+ this.lineId2;
+	}
+}
@@ -7,13 +7,13 @@ import math.geom2d.line.Line2D;
 public class Line {
 	public int lineId;
 
-	public Double a;
-	public Double b;
-	public Double c;
-	public Double t1;
-	public Double t2;
+	public double a;
+	public double b;
+	public double c;
+	public double t1;
+	public double t2;
 
-	public Line(int id, Double a, Double b, Double c, Double t1, Double t2) {
+	public Line(int id, double a, double b, double c, double t1, double t2) {
 		this.lineId = id;
 		this.a = a;
 		this.b = b;
@@ -32,12 +32,7 @@ public class Line {
 	}
 
 	public Line(LineInstance l) {
-		this.lineId = l.lineId;
-		this.a = l.a;
-		this.b = l.b;
-		this.c = l.c;
-		this.t1 = l.t1;
-		this.t2 = l.t2;
+		this(l.getLine());
 	}
 
 	public void printLine() {
@@ -45,12 +40,12 @@ public class Line {
 				+ " " + this.c + " " + this.t1 + " " + this.t2);
 	}
 
-	public boolean isInRange(Double x) {
+	public boolean isInRange(double x) {
 		return (x >= t1 && x <= t2);
 	}
 
-	public Double getY(Double x) {
-		return (this.a * Math.pow(x, 2) + b * x + c);
+	public double getY(double x) {
+		return (this.a * x + this.b) * x + this.c;
 	}
 
 	public Point getStartPoint() {
@@ -73,9 +68,9 @@ public class Line {
 	}
 	// For graphics.
 	public Parabola2D getParabola2D() {
-		Double a = this.a ;
-		Double b = this.b ;
-		Double c = this.c ;
+		double a = this.a ;
+		double b = this.b ;
+		double c = this.c ;
 		Point2D vertex1 = new Point2D(((-b / (2 * a))+150), -getY(-b
 				/ (2 * a))+175);
 		Point2D focus1 = new Point2D((-(b / (2 * a))+150),
@@ -2,25 +2,57 @@ package basic_geometric_entities;
 
 import java.util.Comparator;
 
-public class LineInstance extends Line implements Comparator<LineInstance> ,Comparable<LineInstance> {
+/**
+ * A line in the sweep line status. The coefficients are not copied: they are
+ * read from the line store by id.
+ */
+public class LineInstance implements Comparator<LineInstance> ,Comparable<LineInstance> {
 
-	public Double currentY;
-	
-	public LineInstance(int id, Double a, Double b, Double c, Double t1, Double t2, Double currentX) {
-		super(id, a, b, c, t1, t2);
+	public int lineId;
+
+	// Coefficients of the line, at row row: lineId in a store shared by the
+	// lines of a plane, 0 in a line's own one-row store.
+	public LineStore store;
+	public int row;
+
+	public double currentY;
+	// The x currentY was evaluated at by yAt (NaN: none), so that a line of
+	// the status is evaluated once per sweep position, not per comparison.
+	// Set it to NaN after changing currentY by hand.
+	public double currentX = Double.NaN;
+
+	// Sweep position the order is evaluated at (null: order by currentY).
+	public SweepPosition sweep;
+
+	// Relative tolerance under which two y values are considered equal.
+	public static final double EPSILON = 1e-9;
+
+	public LineInstance(int id, double a, double b, double c, double t1, double t2, double currentX) {
+		this.lineId = id;
+		this.store = new LineStore(1);
+		this.store.set(0, a, b, c, t1, t2);
 		this.currentY = this.getY(currentX);
+		this.currentX = currentX;
 	}
-	
-	public LineInstance(Line l, Double currentX) {
-		super(l);
-		this.currentY = this.getY(currentX);
+
+	public LineInstance(Line l, double currentX) {
+		this(l.lineId, l.a, l.b, l.c, l.t1, l.t2, currentX);
 	}
-	
-	public LineInstance(Line l, boolean immediateY, Double currentY) {
-		super(l);
+
+	public LineInstance(Line l, boolean immediateY, double currentY) {
+		this(l.lineId, l.a, l.b, l.c, l.t1, l.t2, 0);
 		this.currentY = currentY;
+		this.currentX = Double.NaN;
+	}
+
+	public LineInstance(LineStore store, int lineId, SweepPosition sweep) {
+		this.lineId = lineId;
+		this.store = store;
+		this.row = lineId;
+		this.sweep = sweep;
+		this.yAt(sweep.x);
 	}
-	
+
 	public int compare(LineInstance one, LineInstance two) {
 		if (two.currentY < one.currentY)
 			return -1;
@@ -28,33 +60,71 @@ public class LineInstance extends Line implements Comparator<LineInstance> ,Comp
 			return 1;
 		return 0;
 	}
-	
+
 	@Override
 	public int compareTo(LineInstance o) {
 		if (this.lineId == o.lineId)
 			return 0;
+		if (this.sweep != null)
+			return this.compareAt(o, this.sweep.x);
 		if (this.currentY < o.currentY)
 			return -1;
 		if (this.currentY > o.currentY)
 			return 1;
 		return 0;
 	}
-	
-	@Override
-	public Double getY(Double x) {
-		return  (this.a*Math.pow(x, 2) + b*x + c);
+
+	/*
+	 * Order of the two lines just to the right of x: by y, then by slope, then
+	 * by curvature, so that lines meeting at x are ordered as they leave it.
+	 */
+	public int compareAt(LineInstance o, double x) {
+		double y1 = this.yAt(x), y2 = o.yAt(x);
+		double tolerance = EPSILON * Math.max(1, Math.max(Math.abs(y1), Math.abs(y2)));
+		if (y1 < y2 - tolerance)
+			return -1;
+		if (y1 > y2 + tolerance)
+			return 1;
+
+		double slope1 = this.store.getSlope(this.row, x), slope2 = o.store.getSlope(o.row, x);
+		if (slope1 != slope2)
+			return (slope1 < slope2) ? -1 : 1;
+		double curve1 = this.store.a[this.row], curve2 = o.store.a[o.row];
+		if (curve1 != curve2)
+			return (curve1 < curve2) ? -1 : 1;
+		return (this.lineId < o.lineId) ? -1 : 1;
 	}
-	
-	@Override
+
+	public double getY(double x) {
+		return this.store.getY(this.row, x);
+	}
+
+	// y at x, as currentY; evaluated only if x is not the last x asked.
+	public double yAt(double x) {
+		if (x != this.currentX) {
+			this.currentY = this.store.getY(this.row, x);
+			this.currentX = x;
+		}
+		return this.currentY;
+	}
+
+	public Line getLine() {
+		Line l = this.store.getLine(this.row);
+		l.lineId = this.lineId;
+		return l;
+	}
+
 	public void printLine() {
-		System.out.println("Line " + this.lineId + " : \n   " + "a) " + this.a + "  b) "
-				+ this.b + "  c) " + this.c + "  t1) " + this.t1 + "  ) t2) " + this.t2 + " --->  y) " + this.currentY + "\n");
+		Line l = this.getLine();
+		System.out.println("Line " + this.lineId + " : \n   " + "a) " + l.a + "  b) "
+				+ l.b + "  c) " + l.c + "  t1) " + l.t1 + "  ) t2) " + l.t2 + " --->  y) " + this.currentY + "\n");
 	}
-	
+
 	@Override
 	public String toString() {
-		return ("Line " + this.lineId + " : \n    " + "a) " + this.a + "  b) "
-				+ this.b + "  c) " + this.c + "  t1) " + this.t1 + "  ) t2) " + this.t2 + " --->  y) " + this.currentY + "\n");
+		Line l = this.getLine();
+		return ("Line " + this.lineId + " : \n    " + "a) " + l.a + "  b) "
+				+ l.b + "  c) " + l.c + "  t1) " + l.t1 + "  ) t2) " + l.t2 + " --->  y) " + this.currentY + "\n");
 	}
-	
+
 }
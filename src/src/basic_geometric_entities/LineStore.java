@@ -0,0 +1,93 @@
+package basic_geometric_entities;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Coefficients of a set of lines, stored column-wise and indexed by line id.
+ * Lines are evaluated on primitives, without an object per line.
+ */
+public class LineStore {
+	public double[] a;
+	public double[] b;
+	public double[] c;
+	public double[] t1;
+	public double[] t2;
+	// One more than the largest line id stored.
+	public int size;
+
+	public LineStore(int capacity) {
+		capacity = Math.max(capacity, 1);
+		this.a = new double[capacity];
+		this.b = new double[capacity];
+		this.c = new double[capacity];
+		this.t1 = new double[capacity];
+		this.t2 = new double[capacity];
+	}
+
+	public LineStore(List<Line> lines) {
+		this(lines.size());
+		for (Line l : lines)
+			this.add(l);
+	}
+
+	public void add(Line l) {
+		this.set(l.lineId, l.a, l.b, l.c, l.t1, l.t2);
+	}
+
+	public void set(int id, double a, double b, double c, double t1, double t2) {
+		if (id >= this.a.length)
+			this.grow(Math.max(id + 1, 2 * this.a.length));
+		this.a[id] = a;
+		this.b[id] = b;
+		this.c[id] = c;
+		this.t1[id] = t1;
+		this.t2[id] = t2;
+		this.size = Math.max(this.size, id + 1);
+	}
+
+	private void grow(int capacity) {
+		this.a = Arrays.copyOf(this.a, capacity);
+		this.b = Arrays.copyOf(this.b, capacity);
+		this.c = Arrays.copyOf(this.c, capacity);
+		this.t1 = Arrays.copyOf(this.t1, capacity);
+		this.t2 = Arrays.copyOf(this.t2, capacity);
+	}
+
+	// Horner's rule: two multiplications and two additions.
+	public double getY(int id, double x) {
+		return (this.a[id] * x + this.b[id]) * x + this.c[id];
+	}
+
+	public double getSlope(int id, double x) {
+		return 2 * this.a[id] * x + this.b[id];
+	}
+
+	public boolean isInRange(int id, double x) {
+		return (x >= this.t1[id] && x <= this.t2[id]);
+	}
+
+	// Materializes a line, e.g. for printing or drawing.
+	public Line getLine(int id) {
+		return new Line(id, this.a[id], this.b[id], this.c[id], this.t1[id],
+				this.t2[id]);
+	}
+
+	// The lines as a list, each materialized when it is accessed.
+	public List<Line> asList() {
+		return new AbstractList<Line>() {
+			@Override
+			public Line get(int id) {
+				if (id < 0 || id >= LineStore.this.size)
+					throw new IndexOutOfBoundsException("line " + id);
+				return LineStore.this.getLine(id);
+			}
+
+			@Override
+			public int size() {
+				return LineStore.this.size;
+			}
+		};
+	}
+}
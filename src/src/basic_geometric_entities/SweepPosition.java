@@ -0,0 +1,14 @@
+package basic_geometric_entities;
+
+/**
+ * The current position of the sweep line. It is shared by all the line
+ * instances of a sweep line status, so that their vertical order is evaluated
+ * lazily at the current x instead of being stored in each instance.
+ */
+public class SweepPosition {
+	public double x;
+
+	public SweepPosition(double x) {
+		this.x = x;
+	}
+}
@@ -0,0 +1,75 @@
+package eventhandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executes the commands of many input files concurrently, one Executor per
+ * file on a fixed pool of threads. The output of each file is buffered and
+ * written in the order of the files, exactly as running them one by one.
+ */
+public class BatchExecutor {
+	public int threads;
+	// Files executed ahead of the one being written, per thread.
+	static final int AHEAD = 2;
+
+	public BatchExecutor(int threads) {
+		this.threads = threads;
+	}
+
+	public void run(List<String> inputFiles, PrintStream out)
+			throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+		try {
+			// Only a window of files is pending, so that the buffered
+			// outputs stay bounded however many files there are.
+			ArrayDeque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+			int next = 0;
+			while (next < inputFiles.size() || !pending.isEmpty()) {
+				while (next < inputFiles.size()
+						&& pending.size() < AHEAD * this.threads)
+					pending.add(pool.submit(execution(inputFiles.get(next++))));
+
+				try {
+					byte[] output = pending.poll().get();
+					out.write(output, 0, output.length);
+				} catch (ExecutionException e) {
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+			out.flush();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	// Executes the commands of a file and returns what they print.
+	static Callable<byte[]> execution(final String inputFile) {
+		return new Callable<byte[]>() {
+			public byte[] call() {
+				ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+				PrintStream out = new PrintStream(buffer);
+				Executor executor = null;
+				try {
+					executor = new Executor(inputFile);
+					executor.plane.out = out;
+					executor.executeCommands();
+				} catch (RuntimeException e) {
+					// What the commands printed comes before the error.
+					if (executor != null)
+						executor.plane.output().flush();
+					out.printf("error: %s: %s\n", inputFile, e);
+				}
+				out.flush();
+				return buffer.toByteArray();
+			}
+		};
+	}
+}
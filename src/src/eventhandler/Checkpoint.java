@@ -0,0 +1,237 @@
+package eventhandler;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import plane.Plane;
+import basic_geometric_entities.LineInstance;
+import events.Event;
+import events.EventQueue;
+import events.EventType;
+
+/**
+ * Snapshots of an executor between two events, to resume a sweep, or go back
+ * to an earlier point of it, without starting over from its input.
+ *
+ * A checkpoint holds what the input does not: the command cursor, the sweep
+ * position and count, the status as line ids bottom first, the endpoints not
+ * yet handled and the queued events. It is little-endian: the magic
+ * "LINECKP2", the absolute input path (int length, UTF-8), the input's size
+ * and modification time (longs), nextCommand (int), boundedEvents and
+ * whether the status is in arrays (bytes), sweep x (double), intersectionNo
+ * (int), then the status, endpoints and events, each an int count followed
+ * by ids, packed endpoints (see EventQueue) and (x, type, lineId, lineId2)
+ * records of a double, a byte and two ints. The lines are read again from
+ * the input; a checkpoint whose input has changed size or time since is
+ * refused.
+ */
+public class Checkpoint {
+	static final byte[] MAGIC = "LINECKP2".getBytes(StandardCharsets.US_ASCII);
+	static final int BUFFER = 1 << 16;
+	static final int EVENT_BYTES = 17;
+
+	/**
+	 * Saves a checkpoint of an executor to a file. It is written aside and
+	 * then moved over the file, which holds the previous checkpoint until
+	 * the new one is complete.
+	 */
+	public static void save(Executor executor, String file) throws IOException {
+		File partial = new File(file + ".part");
+		FileChannel channel = new FileOutputStream(partial).getChannel();
+		try {
+			write(executor, channel);
+		} finally {
+			channel.close();
+		}
+		Files.move(partial.toPath(), new File(file).toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// An executor as it was at the checkpoint in a file.
+	public static Executor restore(String file) throws IOException {
+		FileChannel channel = new FileInputStream(file).getChannel();
+		try {
+			return read(channel);
+		} finally {
+			channel.close();
+		}
+	}
+
+	public static void write(Executor executor, WritableByteChannel channel)
+			throws IOException {
+		Plane plane = executor.plane;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER).order(
+				ByteOrder.LITTLE_ENDIAN);
+		File input = new File(executor.inputFile).getAbsoluteFile();
+		byte[] path = input.getPath().getBytes(StandardCharsets.UTF_8);
+		if (path.length + 34 > BUFFER)
+			throw new IOException("input path too long: " + input);
+		buffer.put(MAGIC).putInt(path.length).put(path);
+		buffer.putLong(input.length()).putLong(input.lastModified());
+		buffer.putInt(executor.nextCommand);
+		buffer.put((byte) (plane.boundedEvents ? 1 : 0));
+		buffer.put((byte) (plane.arrayStatus != null ? 1 : 0));
+		buffer.putDouble(plane.sweep.x).putInt(plane.intersectionNo);
+
+		putInts(plane.statusIDs(), channel, buffer);
+		putInts(plane.events.pendingEndpoints(), channel, buffer);
+
+		buffer.putInt(plane.events.queue.size());
+		for (Event e : plane.events.queue) {
+			if (buffer.remaining() < EVENT_BYTES)
+				drain(channel, buffer);
+			buffer.putDouble(e.x).put((byte) e.type.ordinal()).putInt(
+					e.lineId).putInt(e.lineId2);
+		}
+		drain(channel, buffer);
+	}
+
+	public static Executor read(ReadableByteChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER).order(
+				ByteOrder.LITTLE_ENDIAN);
+		buffer.limit(0);
+		byte[] magic = new byte[MAGIC.length];
+		fill(channel, buffer, MAGIC.length + 4);
+		buffer.get(magic);
+		if (!Arrays.equals(magic, MAGIC))
+			throw new IOException("not a checkpoint");
+		int pathLength = buffer.getInt();
+		if (pathLength < 0 || pathLength > BUFFER - 34)
+			throw new IOException("not a checkpoint");
+		byte[] path = new byte[pathLength];
+		fill(channel, buffer, pathLength + 34);
+		buffer.get(path);
+
+		// The lines come from the input: it must be the one swept.
+		File input = new File(new String(path, StandardCharsets.UTF_8));
+		long length = buffer.getLong(), modified = buffer.getLong();
+		if (!input.isFile())
+			throw new IOException("input of the checkpoint not found: "
+					+ input);
+		if (input.length() != length || input.lastModified() != modified)
+			throw new IOException("input changed since the checkpoint: "
+					+ input);
+
+		Executor executor = new Executor(input.getPath());
+		Plane plane = executor.plane;
+		executor.nextCommand = buffer.getInt();
+		if (executor.nextCommand < 0
+				|| executor.nextCommand > plane.commands.size())
+			throw new IOException("not a checkpoint");
+		plane.boundedEvents = buffer.get() != 0;
+		boolean arrayStatus = buffer.get() != 0;
+		plane.sweep.x = buffer.getDouble();
+		plane.intersectionNo = buffer.getInt();
+
+		// The status in its saved order, which a comparison at x could break
+		// for lines that meet there, in the tree it was saved from.
+		int lineNo = plane.lineStore.size;
+		int[] status = getInts(channel, buffer, lineNo);
+		for (int id : status)
+			checkLine(id, lineNo);
+		if (arrayStatus) {
+			plane.useArrayStatus();
+			plane.arrayStatus.build(status);
+		} else {
+			LineInstance[] values = new LineInstance[status.length];
+			for (int i = 0; i < status.length; i++)
+				values[i] = new LineInstance(plane.lineStore, status[i],
+						plane.sweep);
+			plane.rootNode = plane.sweepLine.build(values);
+		}
+
+		EventQueue events = new EventQueue(new Event());
+		int[] endpoints = getInts(channel, buffer, 2 * lineNo);
+		for (int endpoint : endpoints)
+			checkLine(endpoint >>> 1, lineNo);
+		events.restoreEndpoints(plane.lineStore, endpoints);
+		fill(channel, buffer, 4);
+		int eventNo = buffer.getInt();
+		if (eventNo < 0)
+			throw new IOException("not a checkpoint");
+		EventType[] types = EventType.values();
+		for (int i = eventNo; i > 0; i--) {
+			fill(channel, buffer, EVENT_BYTES);
+			Event e = new Event();
+			e.x = buffer.getDouble();
+			int type = buffer.get();
+			if (type < 0 || type >= types.length)
+				throw new IOException("not a checkpoint");
+			e.type = types[type];
+			e.lineId = buffer.getInt();
+			e.lineId2 = buffer.getInt();
+			checkLine(e.lineId, lineNo);
+			if (e.lineId2 != -1 || e.type == EventType.INTERSECTION)
+				checkLine(e.lineId2, lineNo);
+			events.add(e);
+		}
+		plane.events = events;
+		return executor;
+	}
+
+	static void putInts(int[] values, WritableByteChannel channel,
+			ByteBuffer buffer) throws IOException {
+		if (buffer.remaining() < 4)
+			drain(channel, buffer);
+		buffer.putInt(values.length);
+		for (int value : values) {
+			if (buffer.remaining() < 4)
+				drain(channel, buffer);
+			buffer.putInt(value);
+		}
+	}
+
+	// An int count, at most max, followed by as many ints.
+	static int[] getInts(ReadableByteChannel channel, ByteBuffer buffer,
+			int max) throws IOException {
+		fill(channel, buffer, 4);
+		int count = buffer.getInt();
+		if (count < 0 || count > max)
+			throw new IOException("not a checkpoint");
+		int[] values = new int[count];
+		for (int i = 0; i < values.length; i++) {
+			if (buffer.remaining() < 4)
+				fill(channel, buffer, 4);
+			values[i] = buffer.getInt();
+		}
+		return values;
+	}
+
+	static void checkLine(int lineId, int lineNo) throws IOException {
+		if (lineId < 0 || lineId >= lineNo)
+			throw new IOException("not a checkpoint");
+	}
+
+	static void drain(WritableByteChannel channel, ByteBuffer buffer)
+			throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	// Reads until at least bytes are left in the buffer.
+	static void fill(ReadableByteChannel channel, ByteBuffer buffer, int bytes)
+			throws IOException {
+		if (buffer.remaining() >= bytes)
+			return;
+		buffer.compact();
+		while (buffer.position() < bytes)
+			if (channel.read(buffer) < 0)
+				throw new EOFException("truncated checkpoint");
+		buffer.flip();
+	}
+}
@@ -1,11 +1,12 @@
 package eventhandler;
 
+import static red_black_tree.ArrayRedBlackTree.NIL;
 import plane.Plane;
+import red_black_tree.ArrayRedBlackTree;
 import red_black_tree.RedBlackTree;
 import utilities.IntersectionChecker;
-import utilities.Pair;
-import basic_geometric_entities.Line;
 import basic_geometric_entities.LineInstance;
+import basic_geometric_entities.LineStore;
 import events.Event;
 import events.EventType;
 
@@ -13,14 +14,24 @@ public final class EventHandler {
 
 	public static void handleEvent(Plane plane, Event event, boolean printInfo) {
 
-		// GRAPHICS - Add shapes to event.		
-		event.eventPoint = event.getPoint2D();
+		// GRAPHICS - Let the visualizer draw the event.
+		if (plane.renderListener != null)
+			plane.renderListener.eventStarted(event);
 
-		plane.rootNode = plane.rootNode.refreshKeys(plane.rootNode.root(),
-				event.x);
+		// The status is ordered lazily at the sweep position; advancing it
+		// keeps the tree valid as long as crossings are swapped below.
+		plane.sweep.x = event.x;
+
+		if (plane.arrayStatus != null) {
+			int added = handleArrayEvent(plane, event);
+			if (printInfo)
+				plane.output().event(event.type.toString().charAt(0), event.x,
+						added);
+			return;
+		}
 
 		char eventType = 0;
-		Double eventX = event.x;
+		double eventX = event.x;
 		int newIntersections = 0;
 
 		LineInstance predecessor = null, successor = null, predecessor2 = null, successor2 = null;
@@ -32,111 +43,31 @@ public final class EventHandler {
 
 			// Insert line into the sweep line status.
 
-			plane.rootNode = plane.rootNode.root().add(
-					new LineInstance(event.associatedLine, true,
-							event.associatedLine.getY(event.x)));
+			LineInstance current = new LineInstance(plane.lineStore,
+					event.lineId, plane.sweep);
+
+			plane.rootNode = plane.rootNode.root().add(current);
 
 			// Remove past intersection events between predecessor and
 			// successor.
 			predecessor = plane.rootNode.root().getPredecessorLine(
-					plane.rootNode.root(),
-					new LineInstance(event.associatedLine, true,
-							event.associatedLine.getY(event.x)));
+					plane.rootNode.root(), current);
 
 			successor = plane.rootNode.root().getSuccessorLine(
-					plane.rootNode.root(),
-					new LineInstance(event.associatedLine, true,
-							event.associatedLine.getY(event.x)));
+					plane.rootNode.root(), current);
 
-			if (predecessor != null && successor != null) {
-
-				for (Event e : plane.events.priorityQueue) {
-
-					if (((e.associatedLine == new Line(predecessor) && e.associatedLine2 == new Line(
-							successor)))
-							|| (e.associatedLine2 == new Line(predecessor) && e.associatedLine == new Line(
-									successor))) {
-						plane.events.remove(e);
-					}
-				}
-			}
+			cancelIntersections(plane, predecessor, successor);
 
 			// Add future intersection events between the new line and
 			// predecessor or successor.
 
 			if (predecessor != null) {
-
-				Pair interPerCur = IntersectionChecker.areIntersectingAt(
-						predecessor, new LineInstance(event.associatedLine,
-								true, event.associatedLine.getY(event.x)));
-
-				if (interPerCur != null) {
-
-					if (interPerCur.point1.x > event.x) {
-
-						newIntersections++;
-						
-						Event toAdd = new Event(interPerCur.point1.x,
-								EventType.INTERSECTION, predecessor,
-								new LineInstance(event.associatedLine, true,
-										event.associatedLine.getY(event.x)));
-						event.hotPointsToDraw.add(toAdd.getPoint2D());
-						plane.events.add(toAdd);
-
-					}
-
-					if (interPerCur.point2 != null) {
-						if (interPerCur.point2.x > event.x) {
-
-							newIntersections++;
-							
-							Event toAdd = new Event(interPerCur.point2.x,
-									EventType.INTERSECTION, predecessor,
-									new LineInstance(event.associatedLine,
-											true,
-											event.associatedLine.getY(event.x)));
-							event.hotPointsToDraw.add(toAdd.getPoint2D());
-							plane.events.add(toAdd);
-						}
-					}
-				}
+				newIntersections += addIntersections(plane, event,
+						predecessor, current);
 			}
 			if (successor != null) {
-
-				Pair interCurSuc = IntersectionChecker.areIntersectingAt(
-						new LineInstance(event.associatedLine, true,
-								event.associatedLine.getY(event.x)), successor);
-
-				if (interCurSuc != null) {
-
-					if (interCurSuc.point1.x > event.x) {
-
-						newIntersections++;
-
-						Event toAdd = new Event(interCurSuc.point1.x,
-								EventType.INTERSECTION, new LineInstance(
-										event.associatedLine, true,
-										event.associatedLine.getY(event.x)),
-								successor);
-						event.hotPointsToDraw.add(toAdd.getPoint2D());
-						plane.events.add(toAdd);
-
-					}
-					if (interCurSuc.point2 != null) {
-						if (interCurSuc.point2.x > event.x) {
-
-							newIntersections++;
-
-							Event toAdd = new Event(interCurSuc.point1.x,
-									EventType.INTERSECTION,
-									new LineInstance(event.associatedLine,
-											true, event.associatedLine
-													.getY(event.x)), successor);
-							event.hotPointsToDraw.add(toAdd.getPoint2D());
-							plane.events.add(toAdd);
-						}
-					}
-				}
+				newIntersections += addIntersections(plane, event, current,
+						successor);
 			}
 			break;
 		case END:
@@ -144,46 +75,24 @@ public final class EventHandler {
 
 			// Add future intersection events .
 
-			predecessor = plane.rootNode.root().getPredecessorLine(
-					plane.rootNode.root(),
-					new LineInstance(event.associatedLine, true,
-							event.associatedLine.getY(event.x)));
+			RedBlackTree ending = plane.rootNode.root().locateByID(
+					event.lineId);
+			if (ending == null)
+				break;
 
-			successor = plane.rootNode.root().getSuccessorLine(
-					plane.rootNode.root(),
-					new LineInstance(event.associatedLine, true,
-							event.associatedLine.getY(event.x)));
+			predecessor = valueOf(RedBlackTree.getPredecessor(ending,
+					plane.rootNode.root()));
 
-			if (predecessor != null && successor != null) {
+			successor = valueOf(RedBlackTree.getSuccessor(ending,
+					plane.rootNode.root()));
 
-				Pair intersect = IntersectionChecker.areIntersectingAt(
+			if (predecessor != null && successor != null) {
+				newIntersections += addIntersections(plane, event,
 						predecessor, successor);
-
-				if (intersect != null && intersect.point1.x > event.x) {
-
-					newIntersections++;
-
-					Event toAdd = new Event(intersect.point1.x,
-							EventType.INTERSECTION, predecessor, successor);
-					event.hotPointsToDraw.add(toAdd.getPoint2D());
-					plane.events.add(toAdd);
-				}
-
-				if (intersect != null && intersect.point2 != null) {
-					if (intersect.point2.x > event.x) {
-
-						newIntersections++;
-
-						Event toAdd = new Event(intersect.point2.x,
-								EventType.INTERSECTION, predecessor, successor);
-						event.hotPointsToDraw.add(toAdd.getPoint2D());
-						plane.events.add(toAdd);
-					}
-				}
 			}
 
-			plane.rootNode = plane.rootNode.removeByID(
-					event.associatedLine.lineId, plane.rootNode.root());
+			plane.rootNode = plane.rootNode.removeByID(event.lineId,
+					plane.rootNode.root());
 
 			break;
 
@@ -192,127 +101,257 @@ public final class EventHandler {
 
 			// Swap lines in the sweep line status.
 
-			RedBlackTree.getOldYL(event.associatedLine, plane.rootNode.root());
-
-			LineInstance li1 = new LineInstance(event.associatedLine, true,
-					RedBlackTree.tempOldY);
-
-			predecessor = plane.rootNode.root().getPredecessorLine(
-					plane.rootNode.root(), li1);
-
-			successor = plane.rootNode.root().getSuccessorLine(
-					plane.rootNode.root(), li1);
-
-			RedBlackTree.getOldYL(event.associatedLine2, plane.rootNode.root());
-
-			LineInstance li2 = new LineInstance(event.associatedLine2, true,
-					RedBlackTree.tempOldY);
-
-			predecessor2 = plane.rootNode.root().getPredecessorLine(
-					plane.rootNode.root(), li2);
-			successor2 = plane.rootNode.root().getSuccessorLine(
-					plane.rootNode.root(), li2);
-
-			// Swap the lines with a little offset to one of them.
-
-			plane.rootNode = plane.rootNode.root().remove(li1);
-
-			li1.currentY = li1.getY(event.x) + 0.00001;
-
-			plane.rootNode = plane.rootNode.root().add(li1);
-
-			plane.rootNode = plane.rootNode.root().remove(li2);
-
-			li2.currentY = li2.getY(event.x);
+			RedBlackTree node1 = plane.rootNode.root().locateByID(
+					event.lineId);
+			RedBlackTree node2 = plane.rootNode.root().locateByID(
+					event.lineId2);
+			if (node1 == null || node2 == null)
+				break;
+			if (node1.successor() != node2 && node2.successor() != node1)
+				break; // stale: the lines are no longer neighbours
+			if (node2.successor() == node1) {
+				RedBlackTree tmp = node1;
+				node1 = node2;
+				node2 = tmp;
+			}
 
-			plane.rootNode = plane.rootNode.root().add(li2);
+			// Lines that only touch keep their order and their neighbours.
+			if (!crosses(plane.lineStore, node1.value.lineId,
+					node2.value.lineId, event.x)) {
+				reportIntersection(plane, event);
+				break;
+			}
 
+			predecessor = valueOf(RedBlackTree.getPredecessor(node1,
+					plane.rootNode.root()));
+			successor = valueOf(RedBlackTree.getSuccessor(node1,
+					plane.rootNode.root()));
 
-			// If there is a second intersection associated with these lines,
-			// re-insert it for tests to pass.
-			for (Event e : plane.events.priorityQueue) {
-				if (e.associatedLine == event.associatedLine 
-					 && e.associatedLine2 == event.associatedLine2) {
-					plane.events.remove(e);
-					newIntersections++;
+			predecessor2 = valueOf(RedBlackTree.getPredecessor(node2,
+					plane.rootNode.root()));
+			successor2 = valueOf(RedBlackTree.getSuccessor(node2,
+					plane.rootNode.root()));
 
-					plane.events.add(e);
-					break;
-				}
+			// Crossing separates each line from its outer neighbour.
+			if (plane.boundedEvents) {
+				cancelIntersections(plane, predecessor, node1.value);
+				cancelIntersections(plane, node2.value, successor2);
 			}
 
+			// The lines cross here, so only their positions are exchanged;
+			// the rest of the status keeps its order past the sweep position.
+			node1.swapValues(node2);
+
 			// Report intersection.
 
-			plane.intersectionNo++;
+			reportIntersection(plane, event);
 
 			// Update dependencies.
 
 			// Between successor and predecessor of first line.
 			if (predecessor != null && successor != null) {
-				Pair intersect = IntersectionChecker.areIntersectingAt(
+				newIntersections += addIntersections(plane, event,
 						predecessor, successor);
-
-				if (intersect != null && intersect.point1.x > event.x) {
-
-					newIntersections++;
-
-					Event toAdd = new Event(intersect.point1.x,
-							EventType.INTERSECTION, predecessor, successor);
-					event.hotPointsToDraw.add(toAdd.getPoint2D());
-					plane.events.add(toAdd);
-				}
-
-				if (intersect != null) {
-					if (intersect.point2 != null) {
-						if (intersect.point2.x > event.x) {
-
-							newIntersections++;
-
-							plane.events.add(new Event(intersect.point2.x,
-									EventType.INTERSECTION, predecessor,
-									successor));
-						}
-					}
-				}
 			}
 
 			// Between successor and predecessor of second line.
 			if (predecessor2 != null && successor2 != null) {
-				Pair intersect = IntersectionChecker.areIntersectingAt(
+				newIntersections += addIntersections(plane, event,
 						predecessor2, successor2);
+			}
 
-				if (intersect != null) {
-					if (intersect != null && intersect.point1.x > event.x) {
-
-						newIntersections++;
+			break;
 
-						plane.events.add(new Event(intersect.point1.x,
-								EventType.INTERSECTION, predecessor2,
-								successor2));
-					}
-					if (intersect.point2 != null) {
-						if (intersect.point2.x > event.x) {
+		default:
+			System.err.println("ERROR HANDLING EVENT : unknown type");
+			break;
+		}
 
-							newIntersections++;
+		if (printInfo) {
+			plane.output().event(eventType, eventX,
+					newIntersections);
+		}
+	}
 
-							plane.events.add(new Event(intersect.point2.x,
-									EventType.INTERSECTION, predecessor2,
-									successor2));
-						}
-					}
-				}
+	/*
+	 * Handles an event over an array status (see Plane.useArrayStatus) as
+	 * above; returns how many intersections it scheduled.
+	 */
+	private static int handleArrayEvent(Plane plane, Event event) {
+		ArrayRedBlackTree status = plane.arrayStatus;
+		int newIntersections = 0;
+		int node, below, above;
+		switch (event.type) {
+		case START:
+			node = status.insert(event.lineId);
+			below = status.predecessor(node);
+			above = status.successor(node);
+			if (below != NIL && above != NIL)
+				plane.events.cancel(status.lineId[below], status.lineId[above]);
+			if (below != NIL)
+				newIntersections += addIntersections(plane, event,
+						status.lineId[below], event.lineId);
+			if (above != NIL)
+				newIntersections += addIntersections(plane, event,
+						event.lineId, status.lineId[above]);
+			break;
+		case END:
+			node = status.node(event.lineId);
+			if (node == NIL)
+				break;
+			below = status.predecessor(node);
+			above = status.successor(node);
+			if (below != NIL && above != NIL)
+				newIntersections += addIntersections(plane, event,
+						status.lineId[below], status.lineId[above]);
+			status.remove(node);
+			break;
+		case INTERSECTION:
+			int lower = status.node(event.lineId), upper = status
+					.node(event.lineId2);
+			if (lower == NIL || upper == NIL)
+				break;
+			if (status.successor(upper) == lower) {
+				upper = lower;
+				lower = status.node(event.lineId2);
+			} else if (status.successor(lower) != upper)
+				break; // stale: the lines are no longer neighbours
+			below = status.predecessor(lower);
+			above = status.successor(upper);
+			int lowerId = status.lineId[lower], upperId = status.lineId[upper];
+			if (!crosses(plane.lineStore, lowerId, upperId, event.x)) {
+				reportIntersection(plane, event);
+				break;
 			}
 
+			if (plane.boundedEvents) {
+				if (below != NIL)
+					plane.events.cancel(status.lineId[below], lowerId);
+				if (above != NIL)
+					plane.events.cancel(upperId, status.lineId[above]);
+			}
+			status.swap(lower, upper);
+			reportIntersection(plane, event);
+
+			// Each line now neighbours the other's outer neighbour.
+			if (below != NIL)
+				newIntersections += addIntersections(plane, event,
+						status.lineId[below], upperId);
+			if (above != NIL)
+				newIntersections += addIntersections(plane, event, lowerId,
+						status.lineId[above]);
 			break;
-
 		default:
 			System.err.println("ERROR HANDLING EVENT : unknown type");
 			break;
 		}
+		return newIntersections;
+	}
 
-		if (printInfo) {
-			System.out.printf("event: %1c %6.2f %1d\n", eventType, eventX,
-					newIntersections);
+	/**
+	 * Whether two lines meeting at x, the lower one in the status first,
+	 * leave x in the other order. Their y being equal there, they are
+	 * compared as compareAt does, by slope and then by curvature: lines that
+	 * only touch at x (a double root of their difference) keep their order.
+	 */
+	public static boolean crosses(LineStore store, int lowerId, int upperId,
+			double x) {
+		// A linear difference changes sign at its root.
+		if (store.a[lowerId] == store.a[upperId])
+			return true;
+		double slope1 = store.getSlope(lowerId, x), slope2 = store.getSlope(
+				upperId, x);
+		// A computed tangency leaves a rounding error in the slopes.
+		if (Math.abs(slope1 - slope2) > LineInstance.EPSILON
+				* Math.max(1, Math.max(Math.abs(slope1), Math.abs(slope2))))
+			return slope1 > slope2;
+		return store.a[lowerId] > store.a[upperId];
+	}
+
+	private static void reportIntersection(Plane plane, Event event) {
+		plane.intersectionNo++;
+		if (plane.intersectionSink != null)
+			plane.intersectionSink.intersection(event.x, plane.lineStore.getY(
+					event.lineId, event.x), event.lineId, event.lineId2);
+	}
+
+	/**
+	 * Fills an empty status with the lines crossing the sweep line at x, as
+	 * if the sweep had just handled every event up to x, and schedules the
+	 * intersections of neighbouring lines past x.
+	 */
+	public static void seedStatus(Plane plane, double x) {
+		plane.sweep.x = x;
+		LineStore store = plane.lineStore;
+		for (int id = 0; id < store.size; id++) {
+			if (store.t1[id] <= x && store.t2[id] > x)
+				plane.rootNode = plane.rootNode.root().add(
+						new LineInstance(store, id, plane.sweep));
 		}
+
+		Event seed = new Event();
+		seed.x = x;
+		RedBlackTree node = plane.rootNode.root();
+		if (node.isEmpty())
+			return;
+		while (!node.left().isEmpty())
+			node = node.left();
+		for (RedBlackTree next = node.successor(); next != null; next = next
+				.successor()) {
+			addIntersections(plane, seed, node.value, next.value);
+			node = next;
+		}
+	}
+
+	/*
+	 * Schedules the intersections of two neighbouring lines that lie ahead of
+	 * the sweep line. Returns how many were not already pending.
+	 */
+	private static int addIntersections(Plane plane, Event event,
+			LineInstance lower, LineInstance upper) {
+		return addIntersections(plane, event, lower.lineId, upper.lineId);
+	}
+	private static int addIntersections(Plane plane, Event event,
+			int lowerId, int upperId) {
+		int found = IntersectionChecker.intersections(plane.lineStore,
+				lowerId, upperId, plane.roots);
+
+		// The later of the two lines was inserted in the order it leaves
+		// their common start with, so a root there (even rounded just past
+		// it) is not a crossing.
+		double from = Math.max(plane.lineStore.t1[lowerId],
+				plane.lineStore.t1[upperId]);
+
+		int added = 0;
+		for (int i = 0; i < found; i++) {
+			double root = plane.roots[i];
+			if (root <= event.x || root > plane.sweepEnd
+					|| root - from <= LineInstance.EPSILON
+							* Math.max(1, Math.abs(root)))
+				continue;
+			if (plane.events.contains(root, EventType.INTERSECTION,
+					lowerId, upperId))
+				continue;
+
+			Event toAdd = new Event(root, EventType.INTERSECTION,
+					plane.lineStore, lowerId, upperId);
+			if (!plane.events.add(toAdd))
+				continue;
+
+			added++;
+			if (plane.renderListener != null)
+				plane.renderListener.eventScheduled(event, toAdd);
+		}
+		return added;
+	}
+
+	private static void cancelIntersections(Plane plane, LineInstance lower,
+			LineInstance upper) {
+		if (lower != null && upper != null)
+			plane.events.cancel(lower.lineId, upper.lineId);
+	}
+
+	private static LineInstance valueOf(RedBlackTree node) {
+		return (node == null) ? null : node.value;
 	}
 }
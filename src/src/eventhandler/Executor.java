@@ -1,32 +1,51 @@
 package eventhandler;
 
 import input.CommandType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 import plane.Plane;
 import events.Event;
+import events.EventQueue;
 
 public class Executor {
 	public Plane plane;
 	public CommandType lastCommand;
+	// Threads used by RUN; above 1, a RUN from the start sweeps slabs of the
+	// plane in parallel (see ParallelSweep), unless it reports to a sink or
+	// saves checkpoints.
+	public int parallelism = 1;
+	public String inputFile;
+	// The command to execute next; a checkpoint taken during a RUN points
+	// at the RUN, which then goes on from there.
+	public int nextCommand;
+	// Where a RUN saves a checkpoint every checkpointInterval events (see
+	// Checkpoint), if not null.
+	public String checkpointFile;
+	public int checkpointInterval = 1 << 20;
 	
 	public Executor(String inputFile) {
+		this.inputFile = inputFile;
 		this.plane = new Plane(inputFile);
 	}
 	
 	public Event executeOneCommand() {
 		Event ret = null;
-		if (!plane.commands.isEmpty()) {
-			lastCommand = plane.commands.get(0);
+		if (this.nextCommand < plane.commands.size()) {
+			lastCommand = plane.commands.get(this.nextCommand);
 			ret = this.handleCommand(lastCommand);
-			plane.commands.remove(0);
+			this.nextCommand++;
+			plane.output().flush();
 		}
 		
 		return ret;
 	}
 	
 	public void executeCommands() {
-		for (CommandType c : plane.commands) {
-			this.handleCommand(c);
-		}
+		for (; this.nextCommand < plane.commands.size(); this.nextCommand++)
+			this.handleCommand(plane.commands.get(this.nextCommand));
+		plane.output().flush();
 	}
 	
 	public Event handleCommand(CommandType command) {
@@ -34,7 +53,7 @@ public class Executor {
 		switch (command) {
 		case STEP:
 			if (plane.events.isEmpty())
-				System.out.printf("error: no more events\n");
+				plane.output().noMoreEvents();
 			else {
 				ret = plane.events.remove();
 				EventHandler.handleEvent(plane, ret, false);
@@ -42,7 +61,7 @@ public class Executor {
 			break;
 		case STEP_P:
 			if (plane.events.isEmpty())
-				System.out.printf("error: no more events\n");
+				plane.output().noMoreEvents();
 			else {
 				ret = plane.events.remove();
 				EventHandler.handleEvent(plane, ret, true);
@@ -52,11 +71,28 @@ public class Executor {
 			plane.printStatus();
 			break;
 		case RUN:
+			// Slabs report out of order, so a sink gets a sequential RUN;
+			// so do checkpoints, which are taken between events.
+			if (this.parallelism > 1 && plane.intersectionSink == null
+					&& this.checkpointFile == null
+					&& plane.sweep.x == Double.NEGATIVE_INFINITY) {
+				plane.intersectionNo += ParallelSweep.run(plane,
+						this.parallelism);
+				plane.events = new EventQueue(new Event());
+				// Past every slab, as a sequential RUN leaves the sweep.
+				plane.sweep.x = Double.POSITIVE_INFINITY;
+			}
+			int sinceCheckpoint = 0;
 			while (!plane.events.isEmpty()) {	
 				ret = plane.events.remove();
 				EventHandler.handleEvent(this.plane, ret, false);
+				if (this.checkpointFile != null
+						&& ++sinceCheckpoint == this.checkpointInterval) {
+					this.checkpoint(this.checkpointFile);
+					sinceCheckpoint = 0;
+				}
 			}
-			System.out.printf("summary: %d segments , %d intersections\n", plane.lines.size(), plane.intersectionNo);
+			plane.output().summary(plane.lines.size(), plane.intersectionNo);
 			break;
 		default:
 			break;
@@ -64,5 +100,16 @@ public class Executor {
 		return ret;
 	}
 	
-	
+	/*
+	 * Saves a checkpoint between two events, with the output so far flushed
+	 * so that it matches the checkpoint.
+	 */
+	public void checkpoint(String file) {
+		plane.output().flush();
+		try {
+			Checkpoint.save(this, file);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
 }
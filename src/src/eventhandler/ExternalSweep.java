@@ -0,0 +1,381 @@
+package eventhandler;
+
+import input.BinaryInput;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+import plane.Plane;
+import utilities.RadixSort;
+import basic_geometric_entities.LineStore;
+import events.Event;
+import events.EventType;
+
+/**
+ * Counts the intersections of a binary input (see BinaryInput) that need not
+ * fit in the heap; only the status and a bounded number of pending events
+ * are kept in memory.
+ *
+ * The endpoint events are sorted in runs of the memory budget, written to
+ * temporary files and merged as the sweep goes. A line takes a slot of a
+ * small line store from its START to its END, which is safe as its
+ * intersections all come before its END. Pending intersections beyond the
+ * budget are spilled, latest first, to sorted runs that are merged back in
+ * the same way. Intersections found are written to a results file as
+ * little-endian (x, y, lineId1, lineId2) records of two doubles and two
+ * longs.
+ */
+public class ExternalSweep implements IntersectionSink {
+	// Bytes of memory for sorting endpoint runs, and for pending
+	// intersections.
+	public long memoryBudget = 64L << 20;
+	// Where run files are written (null: the default temporary directory).
+	public File directory;
+	// Keep intersections of adjacent lines only (see Plane.boundedEvents).
+	public boolean boundedEvents = true;
+	public long lineNo;
+
+	// Heap bytes per line while sorting a run: keys, entries and their copies.
+	static final int SORT_BYTES = 48;
+	// Heap bytes per pending intersection event, with its tree entries.
+	static final int EVENT_BYTES = 200;
+	static final int BUFFER = 1 << 16;
+
+	Plane plane;
+	// Line id of each slot, and slot of each active line id.
+	long[] slotIds = new long[16];
+	HashMap<Long, Integer> slots = new HashMap<Long, Integer>();
+	int[] freeSlots = new int[16];
+	int freeSlotNo, slotNo;
+
+	FileChannel out;
+	ByteBuffer buffer;
+	long found;
+
+	PriorityQueue<Run> endpoints = new PriorityQueue<Run>();
+	PriorityQueue<Run> spilled = new PriorityQueue<Run>();
+	ArrayList<File> runFiles = new ArrayList<File>();
+
+	/**
+	 * Sweeps the input and returns how many intersections it has. They are
+	 * also written to results unless it is null.
+	 */
+	public long run(String binaryInput, String results) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(binaryInput, "r");
+		this.out = (results == null) ? null : new FileOutputStream(results)
+				.getChannel();
+		this.buffer = ByteBuffer.allocateDirect(BUFFER).order(
+				ByteOrder.LITTLE_ENDIAN);
+		this.found = 0;
+		try {
+			this.lineNo = BinaryInput.lineCount(in.getChannel());
+			this.writeEndpointRuns(in.getChannel());
+			in.close();
+
+			this.plane = new Plane(new LineStore(16));
+			this.plane.boundedEvents = this.boundedEvents;
+			this.plane.intersectionSink = this;
+			long maxQueued = Math.max(16, this.memoryBudget / EVENT_BYTES);
+
+			// Spilled copies of an intersection may come back with it.
+			double lastX = Double.NaN;
+			long lastPair = -1;
+			Event event;
+			while ((event = this.nextEvent()) != null) {
+				long pair = (long) event.lowId() << 32 | event.highId();
+				if (event.type == EventType.INTERSECTION) {
+					if (event.x == lastX && pair == lastPair)
+						continue;
+					lastX = event.x;
+					lastPair = pair;
+				}
+
+				EventHandler.handleEvent(this.plane, event, false);
+				if (event.type == EventType.END)
+					this.freeSlot(event.lineId);
+				if (this.plane.events.size() > maxQueued)
+					this.spill(this.plane.events.size() / 2);
+			}
+			if (this.out != null)
+				flush(this.out, this.buffer);
+			return this.found;
+		} catch (UncheckedIOException e) {
+			throw e.getCause(); // from writing a result
+		} finally {
+			in.close();
+			if (this.out != null)
+				this.out.close();
+			for (Run run : this.endpoints)
+				run.in.close();
+			for (Run run : this.spilled)
+				run.in.close();
+			for (File file : this.runFiles)
+				file.delete();
+		}
+	}
+
+	// Writes an intersection of two slots as a record of their line ids.
+	public void intersection(double x, double y, int slot1, int slot2) {
+		this.found++;
+		if (this.out == null)
+			return;
+		try {
+			if (this.buffer.remaining() < 32)
+				flush(this.out, this.buffer);
+			this.buffer.putDouble(x).putDouble(y).putLong(this.slotIds[slot1])
+					.putLong(this.slotIds[slot2]);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/*
+	 * Sorts the endpoints of consecutive lines in runs that fit the budget.
+	 * Each run is sorted by (x, type, id): STARTs are collected before ENDs,
+	 * both by id, and the radix sort keeps that order among equal x.
+	 */
+	void writeEndpointRuns(FileChannel input) throws IOException {
+		long perRun = Math.max(1, Math.min(this.memoryBudget / SORT_BYTES,
+				Integer.MAX_VALUE / BinaryInput.RECORD));
+		for (long first = 0; first < this.lineNo; first += perRun) {
+			int n = (int) Math.min(perRun, this.lineNo - first);
+			DoubleBuffer lines = input
+					.map(FileChannel.MapMode.READ_ONLY,
+							BinaryInput.HEADER + first * BinaryInput.RECORD,
+							(long) n * BinaryInput.RECORD)
+					.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+
+			long[] keys = new long[2 * n];
+			int[] entries = new int[2 * n];
+			for (int i = 0; i < n; i++) {
+				keys[i] = RadixSort.key(lines.get(5 * i + 3));
+				entries[i] = i << 1;
+				keys[n + i] = RadixSort.key(lines.get(5 * i + 4));
+				entries[n + i] = i << 1 | 1;
+			}
+			RadixSort.sort(keys, entries, 0, 2 * n);
+
+			File file = this.runFile("endpoints");
+			DataOutputStream run = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(file), BUFFER));
+			try {
+				for (int j = 0; j < 2 * n; j++) {
+					int i = entries[j] >>> 1;
+					run.writeLong(keys[j]);
+					run.writeLong((long) (entries[j] & 1) << 62 | (first + i));
+					for (int k = 0; k < 5; k++)
+						run.writeDouble(lines.get(5 * i + k));
+				}
+			} finally {
+				run.close();
+			}
+			this.open(this.endpoints, file, 2L * n, true);
+		}
+	}
+
+	/*
+	 * The next event in order: the first of the next endpoint, the next
+	 * pending intersection and the next spilled one; null at the end.
+	 */
+	Event nextEvent() throws IOException {
+		while (true) {
+			Run endpoint = this.endpoints.peek(), spill = this.spilled.peek();
+			Event queued = this.plane.events.isEmpty() ? null
+					: this.plane.events.element();
+
+			// Queued and spilled intersections are ordered alike.
+			boolean spillFirst = spill != null
+					&& (queued == null || compare(RadixSort.valueOf(spill.key),
+							1, spill.code, queued.x, 1, (long) queued.lowId() << 32
+									| queued.highId()) < 0);
+			double x = spillFirst ? RadixSort.valueOf(spill.key)
+					: (queued == null) ? Double.NaN : queued.x;
+
+			if (endpoint != null) {
+				int priority = (endpoint.code >>> 62 == 0) ? 0 : 2;
+				if ((!spillFirst && queued == null)
+						|| compare(RadixSort.valueOf(endpoint.key), priority, 0,
+								x, 1, 0) < 0) {
+					Event e = this.endpointEvent(endpoint);
+					if (e != null)
+						return e;
+					continue;
+				}
+			}
+			if (spillFirst) {
+				this.spilled.poll();
+				Event e = new Event(x, EventType.INTERSECTION,
+						this.plane.lineStore, (int) (spill.code >>> 32),
+						(int) spill.code);
+				if (spill.next())
+					this.spilled.add(spill);
+				return e;
+			}
+			return (queued == null) ? null : this.plane.events.remove();
+		}
+	}
+
+	/*
+	 * Turns the head of the endpoint runs into an event on a slot; null for
+	 * the END of a line that never started, which is not in the status.
+	 */
+	Event endpointEvent(Run run) throws IOException {
+		this.endpoints.poll();
+		double x = RadixSort.valueOf(run.key);
+		long id = run.code & ~(3L << 62);
+		Event e = null;
+		if (run.code >>> 62 == 0) {
+			int slot = this.takeSlot(id);
+			this.plane.lineStore.set(slot, run.a, run.b, run.c, run.t1,
+					run.t2);
+			if (slot >= this.plane.rootNode.root().index.length)
+				this.plane.rootNode.root().growIndex(
+						this.plane.lineStore.a.length);
+			e = new Event(x, EventType.START, slot);
+		} else {
+			Integer slot = this.slots.get(id);
+			if (slot != null)
+				e = new Event(x, EventType.END, slot);
+		}
+		if (run.next())
+			this.endpoints.add(run);
+		return e;
+	}
+
+	int takeSlot(long id) {
+		int slot = (this.freeSlotNo > 0) ? this.freeSlots[--this.freeSlotNo]
+				: this.slotNo++;
+		if (slot >= this.slotIds.length)
+			this.slotIds = Arrays.copyOf(this.slotIds, 2 * slot);
+		this.slotIds[slot] = id;
+		this.slots.put(id, slot);
+		return slot;
+	}
+
+	void freeSlot(int slot) {
+		if (slot < 0 || this.slots.remove(this.slotIds[slot]) == null)
+			return;
+		if (this.freeSlotNo == this.freeSlots.length)
+			this.freeSlots = Arrays.copyOf(this.freeSlots,
+					2 * this.freeSlotNo);
+		this.freeSlots[this.freeSlotNo++] = slot;
+	}
+
+	// Moves the latest pending intersections to a new sorted run.
+	void spill(int count) throws IOException {
+		Event[] latest = new Event[count];
+		Iterator<Event> pending = this.plane.events.queue.descendingIterator();
+		for (int i = count - 1; i >= 0; i--)
+			latest[i] = pending.next();
+
+		File file = this.runFile("spilled");
+		DataOutputStream run = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), BUFFER));
+		try {
+			for (Event e : latest) {
+				this.plane.events.remove(e);
+				run.writeLong(RadixSort.key(e.x));
+				run.writeLong((long) e.lowId() << 32 | e.highId());
+			}
+		} finally {
+			run.close();
+		}
+		this.open(this.spilled, file, count, false);
+	}
+
+	/*
+	 * Event order given as (x, priority, tie): the ties of endpoints are
+	 * line ids, those of intersections their pair of slots.
+	 */
+	static int compare(double x1, int priority1, long tie1, double x2,
+			int priority2, long tie2) {
+		int relation = Double.compare(x1, x2);
+		if (relation != 0)
+			return relation;
+		if (priority1 != priority2)
+			return priority1 - priority2;
+		return Long.compare(tie1, tie2);
+	}
+
+	File runFile(String prefix) throws IOException {
+		File file = File.createTempFile(prefix, ".run", this.directory);
+		file.deleteOnExit();
+		this.runFiles.add(file);
+		return file;
+	}
+
+	void open(PriorityQueue<Run> runs, File file, long records,
+			boolean endpoints) throws IOException {
+		Run run = new Run(file, records, endpoints);
+		if (run.next())
+			runs.add(run);
+	}
+
+	static void flush(FileChannel out, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			out.write(buffer);
+		buffer.clear();
+	}
+
+	/*
+	 * A sorted run file read record by record: a sort key, a code (the type
+	 * and line id of an endpoint, or the pair of slots of an intersection)
+	 * and, for endpoints, the coefficients of the line.
+	 */
+	static class Run implements Comparable<Run> {
+		DataInputStream in;
+		long remaining;
+		boolean endpoints;
+		long key, code;
+		double a, b, c, t1, t2;
+
+		Run(File file, long records, boolean endpoints) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file), BUFFER));
+			this.remaining = records;
+			this.endpoints = endpoints;
+		}
+
+		// Reads the next record; false (and closed) at the end of the run.
+		boolean next() throws IOException {
+			if (this.remaining == 0) {
+				this.in.close();
+				return false;
+			}
+			this.remaining--;
+			this.key = this.in.readLong();
+			this.code = this.in.readLong();
+			if (this.endpoints) {
+				this.a = this.in.readDouble();
+				this.b = this.in.readDouble();
+				this.c = this.in.readDouble();
+				this.t1 = this.in.readDouble();
+				this.t2 = this.in.readDouble();
+			}
+			return true;
+		}
+
+		public int compareTo(Run o) {
+			int relation = Long.compareUnsigned(this.key, o.key);
+			return (relation != 0) ? relation : Long.compare(this.code, o.code);
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package eventhandler;
+
+/**
+ * Receives each intersection as the sweep reports it, in sweep order. The
+ * point is on the first line; nothing is kept once the call returns.
+ */
+public interface IntersectionSink {
+
+	public void intersection(double x, double y, int lineId1, int lineId2);
+}
@@ -0,0 +1,54 @@
+package eventhandler;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+import plane.Plane;
+import basic_geometric_entities.Intersection;
+
+/**
+ * The intersections of a plane's remaining sweep, pulled one at a time: each
+ * call handles events only until the next intersection is reported, so
+ * memory does not grow with the number of results. The iterator takes over
+ * the plane's sink and sweeps the plane as it goes.
+ */
+public class Intersections implements Iterator<Intersection>, IntersectionSink {
+	Plane plane;
+	Intersection next;
+
+	public Intersections(Plane plane) {
+		this.plane = plane;
+		plane.intersectionSink = this;
+	}
+
+	public static Iterator<Intersection> iterator(Plane plane) {
+		return new Intersections(plane);
+	}
+
+	public static Spliterator<Intersection> spliterator(Plane plane) {
+		return Spliterators.spliteratorUnknownSize(new Intersections(plane),
+				Spliterator.ORDERED | Spliterator.NONNULL);
+	}
+
+	public boolean hasNext() {
+		// An event reports at most one intersection.
+		while (this.next == null && !this.plane.events.isEmpty())
+			EventHandler.handleEvent(this.plane, this.plane.events.remove(),
+					false);
+		return this.next != null;
+	}
+
+	public Intersection next() {
+		if (!this.hasNext())
+			throw new NoSuchElementException();
+		Intersection found = this.next;
+		this.next = null;
+		return found;
+	}
+
+	public void intersection(double x, double y, int lineId1, int lineId2) {
+		this.next = new Intersection(x, y, lineId1, lineId2);
+	}
+}
@@ -0,0 +1,103 @@
+package eventhandler;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import plane.Plane;
+
+/**
+ * Counts the intersections of a plane by sweeping vertical slabs in parallel.
+ * The x-range is cut at endpoints into slabs (left, right] holding about as
+ * many endpoints each; every slab seeds its status with the lines crossing
+ * its left border and counts the intersections within it, so each
+ * intersection is counted by exactly one slab.
+ */
+public class ParallelSweep {
+
+	// Slabs per thread, so that work stealing evens out dense slabs.
+	static final int SLABS_PER_THREAD = 4;
+
+	/**
+	 * Returns the number of intersections a sequential RUN would report. The
+	 * plane itself is left untouched.
+	 */
+	public static int run(Plane plane, int parallelism) {
+		double[] borders = borders(plane, parallelism * SLABS_PER_THREAD);
+		if (borders.length < 2)
+			return 0;
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			return pool.invoke(new Slabs(plane, borders, 0, borders.length - 1));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/*
+	 * Slab borders: the smallest endpoint, then endpoints splitting the sorted
+	 * endpoints into about equal parts, then the largest one.
+	 */
+	static double[] borders(Plane plane, int slabs) {
+		int n = plane.lineStore.size;
+		if (n == 0)
+			return new double[0];
+
+		double[] endpoints = new double[2 * n];
+		System.arraycopy(plane.lineStore.t1, 0, endpoints, 0, n);
+		System.arraycopy(plane.lineStore.t2, 0, endpoints, n, n);
+		Arrays.sort(endpoints);
+
+		slabs = Math.max(1, Math.min(slabs, endpoints.length - 1));
+		double[] borders = new double[slabs + 1];
+		int count = 0;
+		for (int s = 0; s <= slabs; s++) {
+			double x = endpoints[(int) ((long) s * (endpoints.length - 1) / slabs)];
+			// Equal endpoints would make an empty slab.
+			if (count == 0 || x > borders[count - 1])
+				borders[count++] = x;
+		}
+		// Everything before the first endpoint is empty: start just before it.
+		borders[0] = Math.nextDown(borders[0]);
+		return Arrays.copyOf(borders, count);
+	}
+
+	// Sweeps slabs [from, to) of the borders, splitting them between threads.
+	@SuppressWarnings("serial")
+	static class Slabs extends RecursiveTask<Integer> {
+		Plane plane;
+		double[] borders;
+		int from, to;
+
+		Slabs(Plane plane, double[] borders, int from, int to) {
+			this.plane = plane;
+			this.borders = borders;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Integer compute() {
+			if (this.to - this.from == 1)
+				return sweep(this.plane, this.borders[this.from],
+						this.borders[this.to]);
+
+			int middle = (this.from + this.to) >>> 1;
+			Slabs left = new Slabs(this.plane, this.borders, this.from, middle);
+			left.fork();
+			int right = new Slabs(this.plane, this.borders, middle, this.to)
+					.compute();
+			return left.join() + right;
+		}
+	}
+
+	// Intersections x with left < x <= right.
+	static int sweep(Plane plane, double left, double right) {
+		Plane slab = new Plane(plane, left, right);
+		EventHandler.seedStatus(slab, left);
+		while (!slab.events.isEmpty())
+			EventHandler.handleEvent(slab, slab.events.remove(), false);
+		return slab.intersectionNo;
+	}
+}
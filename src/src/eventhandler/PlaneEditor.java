@@ -0,0 +1,92 @@
+package eventhandler;
+
+import java.util.BitSet;
+
+import plane.Plane;
+import utilities.IntersectionChecker;
+import basic_geometric_entities.Line;
+import basic_geometric_entities.LineInstance;
+import basic_geometric_entities.LineStore;
+
+/**
+ * Adds and removes lines of a plane whose sweep has finished, keeping its
+ * intersection count as a new sweep would have it. A change only meets the
+ * changed line with the others, one pass over the line store, instead of
+ * sweeping again.
+ *
+ * Removed lines keep their ids and their place in plane.lines; the editor
+ * leaves them out from then on.
+ */
+public class PlaneEditor {
+	public Plane plane;
+	// Notified of the intersections a removal takes back (may be null).
+	// Those an addition finds go to the plane's intersection sink.
+	public IntersectionSink retractions;
+	BitSet removed = new BitSet();
+	double[] roots = new double[2];
+
+	public PlaneEditor(Plane plane) {
+		if (!plane.events.isEmpty())
+			throw new IllegalStateException("the sweep has not finished");
+		this.plane = plane;
+	}
+
+	/**
+	 * Adds a line, which gets the next id, and counts its intersections with
+	 * the lines present. Returns its id.
+	 */
+	public int add(Line line) {
+		LineStore store = this.plane.lineStore;
+		int id = store.size;
+		line.lineId = id;
+		store.add(line);
+		// A view of a binary input's store grows with it.
+		if (this.plane.lines.size() < store.size)
+			this.plane.lines.add(line);
+
+		this.plane.intersectionNo += this.meet(id, this.plane.intersectionSink);
+		return id;
+	}
+
+	// Removes a line and takes back its intersections.
+	public void remove(int lineId) {
+		if (lineId < 0 || lineId >= this.plane.lineStore.size
+				|| this.removed.get(lineId))
+			throw new IllegalArgumentException("no line " + lineId);
+		this.removed.set(lineId);
+		this.plane.intersectionNo -= this.meet(lineId, this.retractions);
+	}
+
+	public boolean isRemoved(int lineId) {
+		return this.removed.get(lineId);
+	}
+
+	/*
+	 * Intersections of a line with every other line present, counted as the
+	 * sweep counts them: roots within both ranges, past their common start.
+	 */
+	int meet(int id, IntersectionSink sink) {
+		LineStore store = this.plane.lineStore;
+		double t1 = store.t1[id], t2 = store.t2[id];
+		int count = 0;
+		for (int other = 0; other < store.size; other++) {
+			if (other == id || store.t2[other] < t1 || store.t1[other] > t2
+					|| this.removed.get(other))
+				continue;
+			int found = IntersectionChecker.intersections(store, id, other,
+					this.roots);
+			double from = Math.max(t1, store.t1[other]);
+			for (int i = 0; i < found; i++) {
+				double root = this.roots[i];
+				if (root - from <= LineInstance.EPSILON
+						* Math.max(1, Math.abs(root)))
+					continue;
+				count++;
+				int low = Math.min(id, other), high = Math.max(id, other);
+				if (sink != null)
+					sink.intersection(root, store.getY(low, root), low, high);
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,17 @@
+package eventhandler;
+
+import events.Event;
+
+/**
+ * Receives the events of a sweep as they are handled, to draw them. Events
+ * only carry their x, type and lines; shapes are built by the listener, so
+ * nothing is allocated for graphics when no listener is attached.
+ */
+public interface RenderListener {
+
+	// Called before the event is applied to the sweep line status.
+	public void eventStarted(Event event);
+
+	// Called for each new intersection event scheduled by the event.
+	public void eventScheduled(Event event, Event scheduled);
+}
@@ -0,0 +1,145 @@
+package eventhandler;
+
+import java.util.Arrays;
+
+import plane.Plane;
+import red_black_tree.PersistentTree;
+import events.Event;
+
+/**
+ * Sweeps a plane while keeping every version of its status, one per event,
+ * in a persistent tree. The status at any x of the sweep, and the lines
+ * just above or below a point, are then found in O(log n) without replaying
+ * the events.
+ *
+ * The persistent tree is updated in the order of the live status, compared
+ * by position in it (see Plane.linesBelow), so both keep the same order
+ * whatever the ties at the event. The live status may be in either tree.
+ */
+public class StatusHistory implements PersistentTree.Order {
+	public Plane plane;
+	// Version i is the status from xs[i] on, after its event.
+	double[] xs = new double[16];
+	PersistentTree[] roots = new PersistentTree[16];
+	int versionNo;
+	PersistentTree current;
+
+	// Starts from the plane's current status, which becomes version 0.
+	public StatusHistory(Plane plane) {
+		this.plane = plane;
+		for (int id : plane.statusIDs())
+			this.current = PersistentTree.insert(this.current, id, this);
+		this.record(plane.sweep.x);
+	}
+
+	// Handles the remaining events of the plane, recording each.
+	public void sweep() {
+		while (!this.plane.events.isEmpty())
+			this.handleEvent(this.plane.events.remove());
+	}
+
+	// Handles an event as EventHandler does, and records the new status.
+	public void handleEvent(Event event) {
+		switch (event.type) {
+		case START:
+			EventHandler.handleEvent(this.plane, event, false);
+			if (this.plane.linesBelow(event.lineId) >= 0)
+				this.current = PersistentTree.insert(this.current,
+						event.lineId, this);
+			break;
+		case END:
+			// Removed while the live status still orders the line.
+			if (this.plane.linesBelow(event.lineId) >= 0)
+				this.current = PersistentTree.delete(this.current,
+						event.lineId, this);
+			EventHandler.handleEvent(this.plane, event, false);
+			break;
+		case INTERSECTION:
+			int below1 = this.plane.linesBelow(event.lineId);
+			int below2 = this.plane.linesBelow(event.lineId2);
+			// The lines swap only if they are still neighbours and cross.
+			boolean swap = false;
+			if (below1 >= 0 && below2 >= 0) {
+				if (below2 == below1 + 1)
+					swap = EventHandler.crosses(this.plane.lineStore,
+							event.lineId, event.lineId2, event.x);
+				else if (below1 == below2 + 1)
+					swap = EventHandler.crosses(this.plane.lineStore,
+							event.lineId2, event.lineId, event.x);
+			}
+			// Both trees hold the same order, so the ranks are the same.
+			if (swap)
+				this.current = PersistentTree.set(PersistentTree.set(
+						this.current, below1, event.lineId2), below2,
+						event.lineId);
+			EventHandler.handleEvent(this.plane, event, false);
+			break;
+		default:
+			EventHandler.handleEvent(this.plane, event, false);
+			break;
+		}
+		this.record(event.x);
+	}
+
+	// Order of two lines in the live status.
+	public int compare(int lineId1, int lineId2) {
+		return Integer.compare(this.plane.linesBelow(lineId1),
+				this.plane.linesBelow(lineId2));
+	}
+
+	void record(double x) {
+		if (this.versionNo == this.xs.length) {
+			this.xs = Arrays.copyOf(this.xs, 2 * this.versionNo);
+			this.roots = Arrays.copyOf(this.roots, 2 * this.versionNo);
+		}
+		this.xs[this.versionNo] = x;
+		this.roots[this.versionNo++] = this.current;
+	}
+
+	public int versionNo() {
+		return this.versionNo;
+	}
+
+	/*
+	 * The last version at x: the status after every event up to x. Before
+	 * the first event it is version 0.
+	 */
+	public int version(double x) {
+		int low = 1, high = this.versionNo;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (this.xs[middle] <= x)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low - 1;
+	}
+
+	public PersistentTree root(int version) {
+		return this.roots[version];
+	}
+
+	// Ids of the lines in the status at x, bottom first.
+	public int[] statusAt(double x) {
+		PersistentTree root = this.roots[this.version(x)];
+		int[] ids = new int[PersistentTree.size(root)];
+		PersistentTree.fillIDs(root, ids, 0);
+		return ids;
+	}
+
+	// The line just below the point (x, y) (or through it), or -1.
+	public int below(double x, double y) {
+		PersistentTree root = this.roots[this.version(x)];
+		int rank = PersistentTree.countBelow(root, this.plane.lineStore, x, y);
+		return (rank == 0) ? -1 : PersistentTree.get(root, rank - 1);
+	}
+
+	// The line just above the point (x, y), or -1.
+	public int above(double x, double y) {
+		PersistentTree root = this.roots[this.version(x)];
+		int rank = PersistentTree.countBelow(root, this.plane.lineStore, x, y);
+		return (rank == PersistentTree.size(root)) ? -1 : PersistentTree.get(
+				root, rank);
+	}
+}
@@ -1,106 +1,123 @@
 package events;
 
-import java.util.ArrayList;
 import java.util.Comparator;
 
-import math.geom2d.Point2D;
-import math.geom2d.conic.Parabola2D;
-import math.geom2d.line.Line2D;
 import basic_geometric_entities.Line;
+import basic_geometric_entities.LineStore;
 import basic_geometric_entities.Point;
 
 public class Event implements Comparator<Event> {
 	// The x-coordinate of the event.
-	public Double x;
+	public double x;
 	// The type of the event.
 	public EventType type;
 	// The line associated with this event. // Always contains successor
+	// (The lines are only set by the constructors taking lines; the sweep
+	// goes by the ids, evaluated in the plane's LineStore.)
 	public Line associatedLine;
 	// The second line associated with this event(in case of intersection). //
 	// Always contains predecessor
 	public Line associatedLine2;
+	// Ids of the associated lines (lineId2 is -1 unless an intersection).
+	public int lineId = -1;
+	public int lineId2 = -1;
 
-	
-	// GRAPHICS : Shapes to draw during the event. 
-	public Line2D sweepLine;
-	public Point2D eventPoint;
-	public ArrayList<Point2D> pointsToDraw = new ArrayList<Point2D>();
-	public ArrayList<Point2D> hotPointsToDraw = new ArrayList<Point2D>();
-	public ArrayList<Line2D> linesToDraw = new ArrayList<Line2D>();
-	public ArrayList<Parabola2D> parabolasToDraw = new ArrayList<Parabola2D>();
-	
-	
 	public Event() {
 	}
 
 	public Event(Event e) {
-		this.sweepLine = new Line2D(e.x + 150, 0, e.x + 150, 1175);
-		
 		this.x = e.x;
 		this.type = e.type;
 		this.associatedLine = e.associatedLine;
 		this.associatedLine2 = e.associatedLine2;
-		
-		// GRAPHICS
-		this.pointsToDraw = e.pointsToDraw;
-		this.eventPoint = e.eventPoint;
-		this.hotPointsToDraw = e.hotPointsToDraw;
-		this.linesToDraw = e.linesToDraw;
+		this.lineId = e.lineId;
+		this.lineId2 = e.lineId2;
 	}
 	
-	public Event(Double double1, EventType type, Line line) {
-		this.sweepLine = new Line2D(double1 + 150, 0, double1 + 150, 1175);
+	public Event(double double1, EventType type, Line line) {
 		this.x = double1;
 		this.type = type;
 		this.associatedLine = line;
+		this.lineId = line.lineId;
+	}
+
+	public Event(double x, EventType type, int lineId) {
+		this.x = x;
+		this.type = type;
+		this.lineId = lineId;
+	}
+
+	// As below, for two lines of a store, without materializing them.
+	public Event(double x, EventType type, LineStore store, int lineId1,
+			int lineId2) {
+		this.x = x;
+		this.type = type;
+		boolean swapped = store.getY(lineId1, x) > store.getY(lineId2, x);
+		this.lineId = swapped ? lineId2 : lineId1;
+		this.lineId2 = swapped ? lineId1 : lineId2;
 	}
 
-	public Event(Double double1, EventType type, Line line1, Line line2) {
-		this.sweepLine = new Line2D(double1 + 150, 0, double1 + 150, 1175);
+	public Event(double double1, EventType type, Line line1, Line line2) {
 		this.x = double1;
 		this.type = type;
 
 		// Keep order for convenience when handling events.
-		this.associatedLine = (line1.getY(double1) > line2.getY(double1)) ? line2
-				: line1;
-		this.associatedLine2 = (line1.getY(double1) > line2.getY(double1)) ? line1
-				: line2;
+		boolean swapped = line1.getY(double1) > line2.getY(double1);
+		this.associatedLine = swapped ? line2 : line1;
+		this.associatedLine2 = swapped ? line1 : line2;
+		this.lineId = this.associatedLine.lineId;
+		this.lineId2 = this.associatedLine2.lineId;
 	}
 
+	// Events are ordered by (x, type, line ids); equal keys are duplicates.
 	public int compare(Event one, Event two) {
-		if (two.x < one.x)
-			return 1;
-		if (two.x > one.x)
-			return -1;
-		if (two.associatedLine == one.associatedLine)
-			return 0;
-		else
-			return (one.associatedLine.lineId - two.associatedLine2.lineId); // Differentiate different events with lineIDs.
+		int relation = Double.compare(one.x, two.x);
+		if (relation != 0)
+			return relation;
+		relation = one.type.priority - two.type.priority;
+		if (relation != 0)
+			return relation;
+		return comparePairs(one, two);
 	}
 
-	// For graphics.
-	public Point2D getPoint2D() {
-		return new Point2D((this.x + 150), (-this.associatedLine.getY(this.x) + 175));
+	// Intersections are keyed by their unordered pair of lines.
+	public int lowId() {
+		return Math.min(this.lineId, this.lineId2 < 0 ? this.lineId : this.lineId2);
 	}
-	public Point getPoint() {
-		return new Point(this.x, this.associatedLine.getY(this.x));
+	public int highId() {
+		return Math.max(this.lineId, this.lineId2);
 	}
-	
-	public void emptyLists() {
-		this.pointsToDraw.clear();
-		this.hotPointsToDraw.clear();
-		this.linesToDraw.clear();
+
+	public static int comparePairs(Event one, Event two) {
+		int relation = Integer.compare(one.lowId(), two.lowId());
+		if (relation != 0)
+			return relation;
+		return Integer.compare(one.highId(), two.highId());
 	}
-		
+
+	// Orders intersection events by line pair, then by x.
+	public static final Comparator<Event> BY_PAIR = new Comparator<Event>() {
+		public int compare(Event one, Event two) {
+			int relation = comparePairs(one, two);
+			if (relation != 0)
+				return relation;
+			return Double.compare(one.x, two.x);
+		}
+	};
+
+	public Point getPoint(LineStore store) {
+		return new Point(this.x, store.getY(this.lineId, this.x));
+	}
+	
 	@Override
 	public String toString() {
 		if (this.type == EventType.INTERSECTION)
 			return ("  " + this.type.toString() + " : \n                 " + this.x
 					+ "\n                                	[LineID : "
-					+ this.associatedLine.lineId + ", " + this.associatedLine2.lineId + "]");
+					+ this.lineId + ", " + this.lineId2 + "]");
 		else
 			return ("  " + this.type.toString() + " : \n                 " + this.x
 				+ "\n                                	[LineID : "
-				+ this.associatedLine.lineId + "]");
+				+ this.lineId + "]");
 	}
 }
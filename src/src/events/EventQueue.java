@@ -1,42 +1,213 @@
 package events;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
 
+import utilities.RadixSort;
+import basic_geometric_entities.LineStore;
+
+/**
+ * Pending events ordered by (x, type, line ids). Events are their own handles:
+ * adding, cancelling and checking for a duplicate key are all O(log n).
+ *
+ * The START and END events of the lines are scheduled in bulk as a sorted
+ * array and merged with the queue as the sweep goes; the queue itself only
+ * holds the events added one by one, i.e. the intersections.
+ */
 public class EventQueue {
-	public PriorityQueue<Event> priorityQueue;
+	public TreeSet<Event> queue;
+	// Scheduled endpoints in event order: line id << 1, plus 1 for an END.
+	int[] endpoints = new int[0];
+	int nextEndpoint;
+	LineStore store;
+	// The next endpoint as an event, created when first needed.
+	Event endpointHead;
+	// Pending intersection events ordered by line pair, to cancel a pair.
+	TreeSet<Event> pairs;
+	// Reusable search keys for pair and key lookups.
+	Event pairProbe;
+	Event keyProbe;
 	
 	public EventQueue(Comparator<Event> comparator) {
-		this.priorityQueue = new PriorityQueue<Event>(11, comparator);
+		this.queue = new TreeSet<Event>(comparator);
+		this.pairs = new TreeSet<Event>(Event.BY_PAIR);
+		this.pairProbe = new Event();
+		this.pairProbe.x = Double.NEGATIVE_INFINITY;
+		this.pairProbe.type = EventType.INTERSECTION;
+		this.keyProbe = new Event();
 	}
 	
+	// Returns false if an event with the same key is already pending.
 	public boolean add(Event e) {
-		// Check queue for duplicate x-coordinates.
-		for (Event eve : this.priorityQueue) {
-			if (eve.x.equals(e.x)) {
-				return false;
+		if (!this.queue.add(e))
+			return false;
+		if (e.type == EventType.INTERSECTION)
+			this.pairs.add(e);
+		return true;
+	}
+	
+	/**
+	 * Schedules the START and END events of the lines at x in (left, right],
+	 * sorting them once. Meant to be called once, on an empty queue.
+	 */
+	public void scheduleEndpoints(LineStore store, double left, double right) {
+		this.store = store;
+		int starts = count(store.t1, store.size, left, right);
+		int ends = count(store.t2, store.size, left, right);
+		long[] keys = new long[starts + ends];
+		int[] endpoints = new int[starts + ends];
+		collect(store.t1, store.size, left, right, 0, keys, endpoints, 0);
+		collect(store.t2, store.size, left, right, 1, keys, endpoints, starts);
+		// Collected by id, so sorting by x keeps ties in id order.
+		RadixSort.sort(keys, endpoints, 0, starts);
+		RadixSort.sort(keys, endpoints, starts, starts + ends);
+
+		// At the same x, STARTs come before ENDs.
+		this.endpoints = new int[starts + ends];
+		this.nextEndpoint = 0;
+		this.endpointHead = null;
+		int s = 0, e = starts;
+		for (int i = 0; i < this.endpoints.length; i++) {
+			if (e == keys.length
+					|| (s < starts && Long.compareUnsigned(keys[s], keys[e]) <= 0))
+				this.endpoints[i] = endpoints[s++];
+			else
+				this.endpoints[i] = endpoints[e++];
+		}
+	}
+
+	// The endpoints not yet handled, in order, packed as in scheduleEndpoints.
+	public int[] pendingEndpoints() {
+		return Arrays.copyOfRange(this.endpoints, this.nextEndpoint,
+				this.endpoints.length);
+	}
+
+	/**
+	 * Schedules endpoints already in order, as pendingEndpoints returned them
+	 * (e.g. from a checkpoint). Replaces any scheduled before.
+	 */
+	public void restoreEndpoints(LineStore store, int[] endpoints) {
+		this.store = store;
+		this.endpoints = endpoints;
+		this.nextEndpoint = 0;
+		this.endpointHead = null;
+	}
+
+	static int count(double[] x, int n, double left, double right) {
+		int count = 0;
+		for (int id = 0; id < n; id++)
+			if (x[id] > left && x[id] <= right)
+				count++;
+		return count;
+	}
+
+	// Endpoints of one type from offset on, with x as an unsigned sort key.
+	static void collect(double[] x, int n, double left, double right,
+			int end, long[] keys, int[] endpoints, int offset) {
+		for (int id = 0; id < n; id++) {
+			if (x[id] > left && x[id] <= right) {
+				keys[offset] = RadixSort.key(x[id]);
+				endpoints[offset++] = id << 1 | end;
 			}
 		}
-		return (this.priorityQueue.add(e));
 	}
-	
+
+	// The next scheduled endpoint as an event, or null if there is none.
+	Event endpointHead() {
+		if (this.endpointHead == null
+				&& this.nextEndpoint < this.endpoints.length)
+			this.endpointHead = this.endpointEvent(this.endpoints[this.nextEndpoint]);
+		return this.endpointHead;
+	}
+
+	Event endpointEvent(int endpoint) {
+		int id = endpoint >>> 1;
+		return ((endpoint & 1) == 0) ? new Event(this.store.t1[id],
+				EventType.START, id) : new Event(this.store.t2[id],
+				EventType.END, id);
+	}
+
+	// Whether the next endpoint comes before the first queued event.
+	boolean endpointFirst() {
+		Event endpoint = this.endpointHead();
+		return endpoint != null
+				&& (this.queue.isEmpty() || this.queue.comparator().compare(
+						endpoint, this.queue.first()) < 0);
+	}
+
 	public Event remove() {
-		return this.priorityQueue.remove();
+		if (this.endpointFirst()) {
+			Event e = this.endpointHead;
+			this.endpointHead = null;
+			this.nextEndpoint++;
+			return e;
+		}
+		if (this.queue.isEmpty())
+			throw new NoSuchElementException();
+		// first() and remove() do not allocate, unlike pollFirst().
+		Event e = this.queue.first();
+		this.queue.remove(e);
+		if (e.type == EventType.INTERSECTION)
+			this.pairs.remove(e);
+		return e;
 	}
 	public boolean remove(Event e) {
-		return this.priorityQueue.remove(e);
+		if (!this.queue.remove(e))
+			return false;
+		if (e.type == EventType.INTERSECTION)
+			this.pairs.remove(e);
+		return true;
+	}
+	
+	// Checks for a queued event with the given key without creating one
+	// (scheduled endpoints are not searched).
+	public boolean contains(double x, EventType type, int lineId, int lineId2) {
+		this.keyProbe.x = x;
+		this.keyProbe.type = type;
+		this.keyProbe.lineId = lineId;
+		this.keyProbe.lineId2 = lineId2;
+		return this.queue.contains(this.keyProbe);
+	}
+	
+	// Cancels the pending intersections of two lines; returns how many.
+	public int cancel(int lineId, int lineId2) {
+		this.pairProbe.lineId = lineId;
+		this.pairProbe.lineId2 = lineId2;
+		
+		int cancelled = 0;
+		Event e = this.pairs.ceiling(this.pairProbe);
+		while (e != null && Event.comparePairs(e, this.pairProbe) == 0) {
+			this.remove(e);
+			cancelled++;
+			e = this.pairs.ceiling(this.pairProbe);
+		}
+		return cancelled;
 	}
 
 	public Event element() {
-		return this.priorityQueue.element();
+		return this.endpointFirst() ? this.endpointHead : this.queue.first();
 	}
 	
 	public boolean isEmpty() {
-		return this.priorityQueue.isEmpty();
+		return this.queue.isEmpty()
+				&& this.nextEndpoint == this.endpoints.length;
 	}
 	
 	public int size() {
-		return this.priorityQueue.size();
+		return this.queue.size() + this.endpoints.length - this.nextEndpoint;
+	}
+
+	// The pending events in order, e.g. for printing.
+	public ArrayList<Event> toList() {
+		ArrayList<Event> events = new ArrayList<Event>(this.queue);
+		for (int i = this.nextEndpoint; i < this.endpoints.length; i++)
+			events.add(this.endpointEvent(this.endpoints[i]));
+		Collections.sort(events, this.queue.comparator());
+		return events;
 	}
 
 }
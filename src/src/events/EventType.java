@@ -1,7 +1,15 @@
 package events;
 
 public enum EventType {
-	START,
-	END,
-	INTERSECTION
+	START(0),
+	END(2),
+	INTERSECTION(1);
+
+	// Order of events sharing an x-coordinate: lines start, then cross, then
+	// end, so that crossings at an endpoint are handled while both lines exist.
+	public final int priority;
+
+	private EventType(int priority) {
+		this.priority = priority;
+	}
 }
@@ -0,0 +1,182 @@
+package input;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import basic_geometric_entities.LineStore;
+
+/**
+ * Lines and commands in a binary file, read straight into a LineStore.
+ *
+ * Format: the 8 bytes "LINEBIN1", the number of lines as a little-endian
+ * long, then per line the little-endian doubles a, b, c, t1, t2. The rest of
+ * the file is the command section, as text in the same form as after the
+ * lines of a text input (it may be empty).
+ *
+ * Usage: BinaryInput <text input> <binary output>
+ */
+public class BinaryInput {
+	static final byte[] MAGIC = "LINEBIN1".getBytes(StandardCharsets.US_ASCII);
+	public static final int HEADER = 16;
+	public static final int RECORD = 5 * 8;
+	// Largest region mapped at once; buffers are indexed by int.
+	static final int WINDOW = 1 << 30;
+	// Text left in a window before the converter maps the next one.
+	static final int MARGIN = 1 << 20;
+
+	public int lineNo;
+	public LineStore lineStore;
+	public ArrayList<CommandType> commands;
+
+	public BinaryInput(String inputFile) {
+		try {
+			RandomAccessFile in = new RandomAccessFile(inputFile, "r");
+			try {
+				this.read(in.getChannel());
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalArgumentException("cannot read " + inputFile, e);
+		}
+	}
+
+	/**
+	 * Checks the header of a binary input and returns its number of lines;
+	 * line i is the record at HEADER + i * RECORD.
+	 */
+	public static long lineCount(FileChannel channel) throws IOException {
+		long size = channel.size();
+		if (size < HEADER)
+			throw new IllegalArgumentException("not a binary input");
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+				HEADER).order(ByteOrder.LITTLE_ENDIAN);
+		byte[] magic = new byte[MAGIC.length];
+		header.get(magic);
+		long count = header.getLong();
+		if (!Arrays.equals(magic, MAGIC) || count < 0)
+			throw new IllegalArgumentException("not a binary input");
+		if (size < HEADER + count * RECORD)
+			throw new IllegalArgumentException("binary input is truncated");
+		return count;
+	}
+
+	private void read(FileChannel channel) throws IOException {
+		long size = channel.size();
+		long count = lineCount(channel);
+		if (count > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("too many lines for the heap: "
+					+ count);
+
+		// Columns are filled window by window, without an object per line.
+		this.lineNo = (int) count;
+		LineStore store = new LineStore(this.lineNo);
+		long offset = HEADER;
+		for (int id = 0; id < this.lineNo;) {
+			int records = Math.min(this.lineNo - id, WINDOW / RECORD);
+			DoubleBuffer doubles = channel
+					.map(FileChannel.MapMode.READ_ONLY, offset,
+							(long) records * RECORD)
+					.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			for (int i = 0; i < 5 * records; i += 5, id++) {
+				store.a[id] = doubles.get(i);
+				store.b[id] = doubles.get(i + 1);
+				store.c[id] = doubles.get(i + 2);
+				store.t1[id] = doubles.get(i + 3);
+				store.t2[id] = doubles.get(i + 4);
+			}
+			offset += (long) records * RECORD;
+		}
+		store.size = this.lineNo;
+		this.lineStore = store;
+
+		int commands = (int) Math.min(size - offset, WINDOW);
+		this.commands = new CommandConstructor(new InputParser(channel.map(
+				FileChannel.MapMode.READ_ONLY, offset, commands), 0, commands)).commands;
+	}
+
+	/** Tells whether a file is in the binary format (false if unreadable). */
+	public static boolean isBinary(String file) {
+		try {
+			RandomAccessFile in = new RandomAccessFile(file, "r");
+			try {
+				byte[] magic = new byte[MAGIC.length];
+				return in.length() >= HEADER && in.read(magic) == magic.length
+						&& Arrays.equals(magic, MAGIC);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Converts a text input to the binary format. The text is read window by
+	 * window, so it may be larger than the heap.
+	 */
+	public static void convert(String textFile, String binaryFile)
+			throws IOException {
+		RandomAccessFile in = new RandomAccessFile(textFile, "r");
+		FileChannel out = new FileOutputStream(binaryFile).getChannel();
+		try {
+			FileChannel text = in.getChannel();
+			long size = text.size(), offset = 0;
+			InputParser parser = window(text, offset);
+			int lineNo = parser.nextInt();
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(
+					ByteOrder.LITTLE_ENDIAN);
+			buffer.put(MAGIC).putLong(lineNo);
+			for (int i = 0; i < lineNo; i++) {
+				if (parser.limit - parser.position < MARGIN
+						&& offset + parser.limit < size) {
+					offset += parser.position;
+					parser = window(text, offset);
+				}
+				if (buffer.remaining() < RECORD)
+					flush(out, buffer);
+				for (int j = 0; j < 5; j++)
+					buffer.putDouble(parser.nextDouble());
+			}
+			flush(out, buffer);
+
+			// The commands, exactly as they follow the lines.
+			offset += parser.position;
+			while (offset < size)
+				offset += text.transferTo(offset, size - offset, out);
+		} finally {
+			in.close();
+			out.close();
+		}
+	}
+
+	static InputParser window(FileChannel text, long offset) throws IOException {
+		int length = (int) Math.min(text.size() - offset, WINDOW);
+		return new InputParser(text.map(FileChannel.MapMode.READ_ONLY, offset,
+				length), 0, length);
+	}
+
+	static void flush(FileChannel out, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			out.write(buffer);
+		buffer.clear();
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("usage: BinaryInput <text input> <binary output>");
+			return;
+		}
+		convert(args[0], args[1]);
+	}
+}
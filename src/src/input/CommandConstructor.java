@@ -1,7 +1,6 @@
 package input;
 
 import java.util.ArrayList;
-import java.util.Scanner;
 
 /**
  *  Extracts the commands from the input file and stores them.
@@ -9,7 +8,7 @@ import java.util.Scanner;
 public class CommandConstructor {
 	ArrayList<CommandType> commands;
 
-	public CommandConstructor(Scanner inputPosition) {
+	public CommandConstructor(InputParser inputPosition) {
 		this.commands = new ArrayList<CommandType>();
 
 		while (inputPosition.hasNextLine()) {
@@ -0,0 +1,187 @@
+package input;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers straight from bytes, without building a String.
+ * Results are the correctly rounded doubles Double.parseDouble returns: the
+ * digits are converted with the Eisel-Lemire algorithm, and the rare inputs
+ * it cannot round with certainty (or with more than 19 digits) fall back to
+ * Double.parseDouble.
+ */
+public final class DoubleParser {
+
+	static final int MIN_EXP10 = -342;
+	static final int MAX_EXP10 = 308;
+
+	// 128-bit mantissas of the powers of ten, normalised so that the top bit
+	// is set: truncated, except for 10^-27..10^-1, which are rounded up.
+	static final long[] POWERS_HI = new long[MAX_EXP10 - MIN_EXP10 + 1];
+	static final long[] POWERS_LO = new long[MAX_EXP10 - MIN_EXP10 + 1];
+
+	// Powers of ten exactly representable as doubles.
+	static final double[] EXACT_POWERS = new double[23];
+
+	static {
+		BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+		for (int e = MIN_EXP10; e <= MAX_EXP10; e++) {
+			BigInteger m;
+			if (e >= 0) {
+				m = BigInteger.TEN.pow(e);
+				int shift = m.bitLength() - 128;
+				m = (shift > 0) ? m.shiftRight(shift) : m.shiftLeft(-shift);
+			} else {
+				BigInteger p = BigInteger.TEN.pow(-e);
+				m = BigInteger.ONE.shiftLeft(p.bitLength() + 127).divide(p);
+				if (e >= -27)
+					m = m.add(BigInteger.ONE);
+			}
+			POWERS_HI[e - MIN_EXP10] = m.shiftRight(64).longValue();
+			POWERS_LO[e - MIN_EXP10] = m.and(mask).longValue();
+		}
+		double power = 1;
+		for (int e = 0; e < EXACT_POWERS.length; e++, power *= 10)
+			EXACT_POWERS[e] = power;
+	}
+
+	/**
+	 * Parses the number in buffer[start, end). Throws NumberFormatException
+	 * if it is not one.
+	 */
+	public static double parse(ByteBuffer buffer, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+'))
+			negative = buffer.get(i++) == '-';
+
+		long mantissa = 0;
+		int digits = 0, exp10 = 0;
+		boolean any = false;
+		// Integer part, then fraction; leading zeros are not significant.
+		for (; i < end && isDigit(buffer.get(i)); i++) {
+			any = true;
+			if (digits < 19) {
+				mantissa = 10 * mantissa + (buffer.get(i) - '0');
+				if (mantissa != 0)
+					digits++;
+			} else {
+				digits++;
+				exp10++;
+			}
+		}
+		if (i < end && buffer.get(i) == '.') {
+			for (i++; i < end && isDigit(buffer.get(i)); i++) {
+				any = true;
+				if (digits < 19) {
+					mantissa = 10 * mantissa + (buffer.get(i) - '0');
+					if (mantissa != 0)
+						digits++;
+					exp10--;
+				} else {
+					digits++;
+				}
+			}
+		}
+		if (!any)
+			return slowParse(buffer, start, end);
+		if (i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+'))
+				negativeExponent = buffer.get(i++) == '-';
+			if (i == end || !isDigit(buffer.get(i)))
+				return slowParse(buffer, start, end);
+			int exponent = 0;
+			for (; i < end && isDigit(buffer.get(i)); i++)
+				if (exponent < 100000)
+					exponent = 10 * exponent + (buffer.get(i) - '0');
+			exp10 += negativeExponent ? -exponent : exponent;
+		}
+		if (i != end || digits > 19)
+			return slowParse(buffer, start, end);
+
+		double value = toDouble(mantissa, exp10);
+		if (Double.isNaN(value))
+			return slowParse(buffer, start, end);
+		return negative ? -value : value;
+	}
+
+	/*
+	 * mantissa * 10^exp10, correctly rounded, or NaN if that cannot be decided
+	 * here.
+	 */
+	static double toDouble(long mantissa, int exp10) {
+		if (mantissa == 0)
+			return 0;
+
+		// Both operands exact: one correctly rounded operation. A mantissa of
+		// 19 digits may be negative here, being unsigned.
+		if (mantissa > 0 && mantissa <= (1L << 53) && exp10 >= -22 && exp10 <= 22)
+			return (exp10 < 0) ? mantissa / EXACT_POWERS[-exp10] : mantissa
+					* EXACT_POWERS[exp10];
+
+		if (exp10 < MIN_EXP10)
+			return 0;
+		if (exp10 > MAX_EXP10)
+			return Double.POSITIVE_INFINITY;
+
+		// Eisel-Lemire: multiply the normalised mantissa by the 128-bit power
+		// of ten and keep the top 54 bits.
+		int clz = Long.numberOfLeadingZeros(mantissa);
+		mantissa <<= clz;
+		long exp2 = ((217706L * exp10) >> 16) + 64 + 1023 - clz;
+
+		int p = exp10 - MIN_EXP10;
+		long hi = Math.multiplyHigh(mantissa, POWERS_HI[p])
+				+ ((POWERS_HI[p] >> 63) & mantissa) + ((mantissa >> 63) & POWERS_HI[p]);
+		long lo = mantissa * POWERS_HI[p];
+
+		if ((hi & 0x1FF) == 0x1FF && Long.compareUnsigned(lo + mantissa, mantissa) < 0) {
+			// The product may be off by the lower half of the power: add it.
+			long yHi = Math.multiplyHigh(mantissa, POWERS_LO[p])
+					+ ((POWERS_LO[p] >> 63) & mantissa) + ((mantissa >> 63) & POWERS_LO[p]);
+			long yLo = mantissa * POWERS_LO[p];
+			long mergedHi = hi, mergedLo = lo + yHi;
+			if (Long.compareUnsigned(mergedLo, lo) < 0)
+				mergedHi++;
+			if ((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0
+					&& Long.compareUnsigned(yLo + mantissa, mantissa) < 0)
+				return Double.NaN;
+			hi = mergedHi;
+			lo = mergedLo;
+		}
+
+		long msb = hi >>> 63;
+		long bits = hi >>> (msb + 9);
+		exp2 -= 1 ^ msb;
+
+		// Exactly halfway between two doubles: not decided here.
+		if (lo == 0 && (hi & 0x1FF) == 0 && (bits & 3) == 1)
+			return Double.NaN;
+
+		bits += bits & 1;
+		bits >>>= 1;
+		if ((bits >>> 53) > 0) {
+			bits >>>= 1;
+			exp2++;
+		}
+		// Subnormal, infinite or out of range.
+		if (exp2 - 1 < 0 || exp2 - 1 >= 0x7FF - 1)
+			return Double.NaN;
+
+		return Double.longBitsToDouble((exp2 << 52) | (bits & 0x000FFFFFFFFFFFFFL));
+	}
+
+	static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	static double slowParse(ByteBuffer buffer, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = start; i < end; i++)
+			bytes[i - start] = buffer.get(i);
+		return Double.parseDouble(new String(bytes, StandardCharsets.ISO_8859_1));
+	}
+}
@@ -0,0 +1,222 @@
+package input;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import utilities.IntersectionChecker;
+import basic_geometric_entities.Line;
+
+/**
+ * Generates random inputs in the format read by LineConstructor: mixed
+ * straight and quadratic curves, followed by commands. The same settings and
+ * seed always give the same input.
+ *
+ * Usage: InputGenerator -n <curves> [-k <intersections>] [-spread <x-range>]
+ * [-span <x-span>] [-degenerate <rate>] [-straight <rate>] [-seed <seed>]
+ * [-o <file>] [commands...]
+ *
+ * -span sets the average x-span of a curve; with -k it is derived from k
+ * instead.
+ */
+public class InputGenerator {
+	// Number of curves.
+	public int n;
+	// Approximate number of intersections to aim for (ignored if negative).
+	public long k = -1;
+	// Curves start within [0, spread).
+	public double spread;
+	// Average x-span of a curve, derived from k when k is given.
+	public double span = 1;
+	// Rate of curves starting at an existing endpoint, or at its x only.
+	// Such curves overlap more often, so they add to the intersections.
+	public double degeneracy;
+	// Rate of straight curves (a == 0).
+	public double straightRate = 0.5;
+	public long seed;
+
+	static final String USAGE = "usage: InputGenerator -n <curves> "
+			+ "[-k <intersections>] [-spread <x-range>] [-span <x-span>] "
+			+ "[-degenerate <rate>] [-straight <rate>] [-seed <seed>] "
+			+ "[-o <file>] [commands...]";
+
+	// Curves are drawn within [-height, height] around their middle.
+	static final double HEIGHT = 10;
+	// Pairs sampled to estimate the intersections of a given span.
+	static final int SAMPLES = 200000;
+
+	public InputGenerator(int n, long seed) {
+		this.n = n;
+		this.seed = seed;
+		this.spread = n;
+	}
+
+	public Line[] generate() {
+		if (this.k >= 0)
+			this.span = this.spanFor(this.k);
+
+		Random random = new Random(this.seed);
+		Line[] lines = new Line[this.n];
+		for (int i = 0; i < this.n; i++) {
+			lines[i] = this.curve(i, random);
+			if (i > 0 && random.nextDouble() < this.degeneracy)
+				lines[i] = this.degenerate(lines[i],
+						lines[random.nextInt(i)], random);
+		}
+		return lines;
+	}
+
+	/*
+	 * A curve over a random range, given by its height, slope and curvature
+	 * at the middle of the range. Curvature is scaled to the span so that
+	 * quadratics bend about as much as straight lines climb.
+	 */
+	Line curve(int id, Random random) {
+		double t1 = random.nextDouble() * this.spread;
+		double t2 = t1 + random.nextDouble() * 2 * this.span;
+		double m = (t1 + t2) / 2;
+		double y = (random.nextDouble() * 2 - 1) * HEIGHT;
+		double slope = (random.nextDouble() * 2 - 1) * HEIGHT / this.span;
+		double a = (random.nextDouble() < this.straightRate) ? 0
+				: (random.nextDouble() * 2 - 1) * HEIGHT
+						/ (this.span * this.span);
+		return new Line(id, a, slope - 2 * a * m, y - slope * m + a * m * m,
+				t1, t2);
+	}
+
+	/*
+	 * The curve moved to start at an endpoint of another one: either at the
+	 * same point or only at the same x.
+	 */
+	Line degenerate(Line l, Line other, Random random) {
+		double x = random.nextBoolean() ? other.t1 : other.t2;
+		Line moved = this.shift(l, x - l.t1);
+		if (random.nextBoolean())
+			moved.c += other.getY(x) - moved.getY(x);
+		return moved;
+	}
+
+	/*
+	 * The span for which about k pairs of curves intersect, found by
+	 * bisection on an estimate of the intersections per pair of curves.
+	 */
+	double spanFor(long k) {
+		double pairs = (double) this.n * (this.n - 1) / 2;
+		double low = 1e-9 * this.spread, high = this.spread;
+		for (int i = 0; i < 40; i++) {
+			double mid = Math.sqrt(low * high);
+			if (pairs * this.intersectionsPerPair(mid) < k)
+				low = mid;
+			else
+				high = mid;
+		}
+		return high;
+	}
+
+	/*
+	 * Expected intersections of two random curves of the given span, ignoring
+	 * the ends of the x-range. A pair overlaps with probability
+	 * (length1 + length2) / spread; the second curve is drawn where it
+	 * overlaps the first and weighted by that probability.
+	 */
+	double intersectionsPerPair(double span) {
+		InputGenerator sample = new InputGenerator(2, this.seed);
+		sample.spread = 0;
+		sample.span = span;
+		sample.straightRate = this.straightRate;
+
+		Random random = new Random(this.seed);
+		double[] xs = new double[2];
+		double total = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			Line l1 = sample.curve(0, random), l2 = sample.curve(1, random);
+			double length1 = l1.t2 - l1.t1, length2 = l2.t2 - l2.t1;
+			double x = l1.t1 - length2 + random.nextDouble()
+					* (length1 + length2);
+			l2 = sample.shift(l2, x - l2.t1);
+			total += IntersectionChecker.intersections(l1, l2, xs)
+					* (length1 + length2) / this.spread;
+		}
+		return total / SAMPLES;
+	}
+
+	// The same curve moved dx along the x-axis.
+	Line shift(Line l, double dx) {
+		// y(x - dx) = a x^2 + (b - 2 a dx) x + (a dx^2 - b dx + c)
+		return new Line(l.lineId, l.a, l.b - 2 * l.a * dx, l.a * dx * dx
+				- l.b * dx + l.c, l.t1 + dx, l.t2 + dx);
+	}
+
+	public static void write(String file, Line[] lines, String[] commands)
+			throws IOException {
+		PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(
+				file)));
+		out.println(lines.length);
+		for (Line l : lines)
+			out.println(l.a + " " + l.b + " " + l.c + " " + l.t1 + " " + l.t2);
+		for (String command : commands)
+			out.println(command);
+		out.close();
+	}
+
+	public static void main(String[] args) throws IOException {
+		InputGenerator generator = new InputGenerator(0, 0);
+		String file = "input.txt";
+		boolean spreadGiven = false;
+		int i = 0;
+		for (; i < args.length && args[i].startsWith("-"); i += 2) {
+			if (i + 1 == args.length) {
+				System.err.println(USAGE);
+				return;
+			}
+			String value = args[i + 1];
+			switch (args[i]) {
+			case "-n":
+				generator.n = Integer.parseInt(value);
+				break;
+			case "-k":
+				generator.k = Long.parseLong(value);
+				break;
+			case "-spread":
+				generator.spread = Double.parseDouble(value);
+				spreadGiven = true;
+				break;
+			case "-span":
+				generator.span = Double.parseDouble(value);
+				break;
+			case "-degenerate":
+				generator.degeneracy = Double.parseDouble(value);
+				break;
+			case "-straight":
+				generator.straightRate = Double.parseDouble(value);
+				break;
+			case "-seed":
+				generator.seed = Long.parseLong(value);
+				break;
+			case "-o":
+				file = value;
+				break;
+			default:
+				System.err.println("unknown option: " + args[i]);
+				System.err.println(USAGE);
+				return;
+			}
+		}
+		if (!spreadGiven)
+			generator.spread = generator.n;
+		// The estimate of k divides by the spread.
+		if (generator.n <= 0 || !(generator.spread > 0)) {
+			System.err.println(USAGE);
+			return;
+		}
+
+		String[] commands = new String[Math.max(args.length - i, 1)];
+		commands[0] = "run";
+		for (int j = i; j < args.length; j++)
+			commands[j - i] = args[j];
+
+		write(file, generator.generate(), commands);
+	}
+}
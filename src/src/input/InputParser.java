@@ -0,0 +1,140 @@
+package input;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads whitespace separated numbers and lines straight from the bytes of an
+ * input file, which is memory-mapped rather than copied. Behaves like the
+ * Scanner it replaces: numbers may span any whitespace, and after the last
+ * number of a line nextLine() returns the rest of that line.
+ */
+public class InputParser {
+	ByteBuffer buffer;
+	int position;
+	int limit;
+
+	public InputParser(ByteBuffer buffer, int position, int limit) {
+		this.buffer = buffer;
+		this.position = position;
+		this.limit = limit;
+	}
+
+	/** Maps the whole file read-only (files up to 2GB). */
+	public static ByteBuffer map(String file) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = in.getChannel();
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			// The mapping stays valid after the file is closed.
+			in.close();
+		}
+	}
+
+	public int position() {
+		return this.position;
+	}
+
+	public int nextInt() {
+		int start = this.nextToken(), end = this.position;
+		int i = start;
+		boolean negative = false;
+		if (i < end && (this.buffer.get(i) == '-' || this.buffer.get(i) == '+'))
+			negative = this.buffer.get(i++) == '-';
+		if (i == end)
+			throw this.mismatch(start, end);
+
+		long value = 0;
+		for (; i < end; i++) {
+			byte b = this.buffer.get(i);
+			if (!DoubleParser.isDigit(b))
+				throw this.mismatch(start, end);
+			value = 10 * value + (b - '0');
+			if (value > (long) Integer.MAX_VALUE + 1)
+				throw this.mismatch(start, end);
+		}
+		value = negative ? -value : value;
+		if (value > Integer.MAX_VALUE)
+			throw this.mismatch(start, end);
+		return (int) value;
+	}
+
+	public double nextDouble() {
+		int start = this.nextToken();
+		try {
+			return DoubleParser.parse(this.buffer, start, this.position);
+		} catch (NumberFormatException e) {
+			throw this.mismatch(start, this.position);
+		}
+	}
+
+	/** Skips whitespace; tells whether a token follows. */
+	public boolean hasNext() {
+		while (this.position < this.limit
+				&& isWhitespace(this.buffer.get(this.position)))
+			this.position++;
+		return this.position < this.limit;
+	}
+
+	public boolean hasNextLine() {
+		return this.position < this.limit;
+	}
+
+	/** The rest of the current line, without its line terminator. */
+	public String nextLine() {
+		if (!this.hasNextLine())
+			throw new NoSuchElementException("No line found");
+		int start = this.position, end = this.lineEnd(start);
+		this.position = end;
+		if (this.position < this.limit && this.buffer.get(this.position) == '\r')
+			this.position++;
+		if (this.position < this.limit && this.buffer.get(this.position) == '\n')
+			this.position++;
+		return this.string(start, end);
+	}
+
+	// End of the line starting at start, before its terminator.
+	int lineEnd(int start) {
+		int end = start;
+		while (end < this.limit && this.buffer.get(end) != '\n'
+				&& this.buffer.get(end) != '\r')
+			end++;
+		return end;
+	}
+
+	/*
+	 * Skips whitespace and the token after it; returns where the token starts,
+	 * leaving the position just past it.
+	 */
+	int nextToken() {
+		if (!this.hasNext())
+			throw new NoSuchElementException();
+		int start = this.position;
+		while (this.position < this.limit
+				&& !isWhitespace(this.buffer.get(this.position)))
+			this.position++;
+		return start;
+	}
+
+	static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+	}
+
+	String string(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = start; i < end; i++)
+			bytes[i - start] = this.buffer.get(i);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	InputMismatchException mismatch(int start, int end) {
+		return new InputMismatchException("For input string: \""
+				+ this.string(start, end) + "\"");
+	}
+}
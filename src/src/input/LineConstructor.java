@@ -1,9 +1,14 @@
 package input;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import basic_geometric_entities.Line;
 
@@ -11,32 +16,179 @@ import basic_geometric_entities.Line;
  *	Extracts the lines given as input in a text file.
  */
 public class LineConstructor {
+	// Files from this size are parsed in parallel chunks.
+	static final int PARALLEL_THRESHOLD = 64 << 20;
+	// Chunks per thread, so that threads done early take more.
+	static final int CHUNKS_PER_THREAD = 4;
+
 	public int lineNo;
 	public ArrayList<Line> lines;
-	public Scanner inputPosition;
+	public InputParser inputPosition;
 
 	public LineConstructor(String inputFile) {
-		this.lines = new ArrayList<Line>();
-		
-		Scanner sc = null;
+		this(inputFile, 0);
+	}
+
+	/**
+	 * Parses the lines with the given number of threads; 0 uses every
+	 * processor for large files and a single thread otherwise.
+	 */
+	public LineConstructor(String inputFile, int parallelism) {
+		ByteBuffer buffer;
 		try {
-			sc = new Scanner(new FileReader(inputFile));
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
+			buffer = InputParser.map(inputFile);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("cannot read " + inputFile, e);
 		}
+		if (parallelism == 0)
+			parallelism = (buffer.limit() >= PARALLEL_THRESHOLD) ? Runtime
+					.getRuntime().availableProcessors() : 1;
 
+		InputParser parser = new InputParser(buffer, 0, buffer.limit());
+		this.lineNo = parser.nextInt();
+
+		int commands = (parallelism > 1) ? this.parseChunks(buffer,
+				parser.position(), parallelism) : -1;
+		if (commands >= 0) {
+			this.inputPosition = new InputParser(buffer, commands,
+					buffer.limit());
+			return;
+		}
+
+		this.lines = new ArrayList<Line>();
 		int lineCounter = 0;
-		this.lineNo = sc.nextInt();
 		for (int i = 0; i < this.lineNo; i++) {
-			this.lines.add(new Line(lineCounter, sc.nextDouble(), sc
-					.nextDouble(), sc.nextDouble(), sc.nextDouble(), sc
-					.nextDouble()));
+			this.lines.add(new Line(lineCounter, parser.nextDouble(), parser
+					.nextDouble(), parser.nextDouble(), parser.nextDouble(),
+					parser.nextDouble()));
 			lineCounter++;
 		}
-		
-		this.inputPosition = sc;
+
+		this.inputPosition = parser;
 	}
-	
+
+	/*
+	 * Cuts the records after the header at line breaks and parses the pieces
+	 * concurrently, assuming one record per line. Returns where the commands
+	 * start, or -1 if the records are not laid out that way.
+	 */
+	int parseChunks(ByteBuffer buffer, int header, int parallelism) {
+		InputParser parser = new InputParser(buffer, header, buffer.limit());
+		int start = parser.lineEnd(header);
+		parser.limit = start;
+		if (parser.hasNext())
+			return -1; // records on the header line
+		start = nextLine(buffer, start);
+
+		int chunks = parallelism * CHUNKS_PER_THREAD;
+		ArrayList<Chunk> tasks = new ArrayList<Chunk>();
+		for (int i = 0, from = start; i < chunks && from < buffer.limit(); i++) {
+			int to = (i == chunks - 1) ? buffer.limit() : nextLine(buffer,
+					start + (int) ((long) (buffer.limit() - start) * (i + 1) / chunks));
+			if (to > from)
+				tasks.add(new Chunk(buffer, from, to));
+			from = Math.max(from, to);
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+		List<Future<Chunk>> parsed;
+		try {
+			parsed = pool.invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return -1;
+		} finally {
+			pool.shutdown();
+		}
+
+		// The records run up to the first line that is not one.
+		ArrayList<Line> lines = new ArrayList<Line>(Math.max(this.lineNo, 0));
+		int commands = buffer.limit();
+		for (Future<Chunk> future : parsed) {
+			Chunk chunk;
+			try {
+				chunk = future.get();
+			} catch (InterruptedException | ExecutionException e) {
+				throw new IllegalStateException(e);
+			}
+			if (!chunk.regular)
+				return -1;
+			for (Line l : chunk.lines) {
+				l.lineId = lines.size();
+				lines.add(l);
+			}
+			if (chunk.stop >= 0) {
+				commands = chunk.stop;
+				break;
+			}
+		}
+		if (lines.size() != this.lineNo)
+			return -1;
+
+		this.lines = lines;
+		return commands;
+	}
+
+	// Start of the line after the one containing position.
+	static int nextLine(ByteBuffer buffer, int position) {
+		while (position < buffer.limit() && buffer.get(position) != '\n')
+			position++;
+		return Math.min(position + 1, buffer.limit());
+	}
+
+	// Parses the records in lines [from, to) of the input.
+	static class Chunk implements Callable<Chunk> {
+		InputParser parser;
+		int from, to;
+		ArrayList<Line> lines;
+		// Start of the first line that is not a record, if any.
+		int stop = -1;
+		// False if a line holds part of a record or more than one.
+		boolean regular = true;
+
+		Chunk(ByteBuffer buffer, int from, int to) {
+			this.parser = new InputParser(buffer, from, to);
+			this.from = from;
+			this.to = to;
+		}
+
+		public Chunk call() {
+			// Records take about forty bytes.
+			this.lines = new ArrayList<Line>((this.to - this.from) / 40 + 1);
+			ByteBuffer buffer = this.parser.buffer;
+			for (int line = this.from; line < this.to; line = nextLine(buffer,
+					line)) {
+				this.parser.position = line;
+				this.parser.limit = this.to;
+				this.parser.limit = this.parser.lineEnd(line);
+
+				if (!this.parser.hasNext()
+						|| !isNumberStart(buffer.get(this.parser.position))) {
+					this.stop = line;
+					break;
+				}
+				try {
+					this.lines.add(new Line(this.lines.size(), this.parser
+							.nextDouble(), this.parser.nextDouble(), this.parser
+							.nextDouble(), this.parser.nextDouble(), this.parser
+							.nextDouble()));
+				} catch (RuntimeException e) {
+					this.regular = false; // not five numbers
+					break;
+				}
+				if (this.parser.hasNext()) {
+					this.regular = false;
+					break;
+				}
+			}
+			return this;
+		}
+
+		static boolean isNumberStart(byte b) {
+			return DoubleParser.isDigit(b) || b == '-' || b == '+' || b == '.';
+		}
+	}
+
 	public void printInputLines() {
 		System.out.println("Line No : " + this.lineNo);
 		System.out.println("Lines:");
@@ -0,0 +1,93 @@
+package output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The command output as little-endian binary records, each starting with a
+ * tag byte:
+ *
+ * 'e' event: the type letter as a byte, x as a double, the new
+ * intersections as an int;
+ * 's' status: the line count as an int, the number of ids (the same) as an
+ * int, then the ids as ints;
+ * 'r' summary: segments and intersections as ints;
+ * 'n' no more events.
+ */
+public class BinarySink implements OutputSink {
+	public static final byte EVENT = 'e';
+	public static final byte STATUS = 's';
+	public static final byte SUMMARY = 'r';
+	public static final byte NO_MORE_EVENTS = 'n';
+
+	OutputStream out;
+	ByteBuffer buffer;
+
+	public BinarySink(OutputStream out) {
+		this(out, TextSink.BUFFER);
+	}
+
+	public BinarySink(OutputStream out, int bufferSize) {
+		this.out = out;
+		this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 64)).order(
+				ByteOrder.LITTLE_ENDIAN);
+	}
+
+	public void event(char type, double x, int newIntersections) {
+		this.reserve(14);
+		this.buffer.put(EVENT).put((byte) type).putDouble(x)
+				.putInt(newIntersections);
+	}
+
+	public void statusStart(int lineNo) {
+		this.reserve(9);
+		this.buffer.put(STATUS).putInt(lineNo).putInt(lineNo);
+	}
+
+	public void statusIds(int[] lineIds, int count) {
+		for (int i = 0; i < count; i++) {
+			this.reserve(4);
+			this.buffer.putInt(lineIds[i]);
+		}
+	}
+
+	public void statusEnd() {
+	}
+
+	public void summary(int segments, int intersections) {
+		this.reserve(9);
+		this.buffer.put(SUMMARY).putInt(segments).putInt(intersections);
+	}
+
+	public void noMoreEvents() {
+		this.reserve(1);
+		this.buffer.put(NO_MORE_EVENTS);
+	}
+
+	public void flush() {
+		try {
+			this.drain();
+			this.out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	void drain() throws IOException {
+		this.out.write(this.buffer.array(), 0, this.buffer.position());
+		this.buffer.clear();
+	}
+
+	void reserve(int n) {
+		if (this.buffer.remaining() >= n)
+			return;
+		try {
+			this.drain();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
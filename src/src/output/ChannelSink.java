@@ -0,0 +1,31 @@
+package output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/** The text output written to a file channel, a buffer at a time. */
+public class ChannelSink extends TextSink {
+	FileChannel channel;
+
+	public ChannelSink(FileChannel channel) {
+		this(channel, BUFFER);
+	}
+
+	public ChannelSink(FileChannel channel, int bufferSize) {
+		super(null, bufferSize);
+		this.channel = channel;
+	}
+
+	@Override
+	protected void write(byte[] bytes, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+		while (buffer.hasRemaining())
+			this.channel.write(buffer);
+	}
+
+	@Override
+	protected void flushOut() {
+		// Written bytes are with the channel already.
+	}
+}
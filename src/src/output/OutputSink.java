@@ -0,0 +1,28 @@
+package output;
+
+/**
+ * Receives what the commands report. The text form of each call is the
+ * original output; implementations may buffer until flush.
+ */
+public interface OutputSink {
+
+	// STEP -p: "event: %1c %6.2f %1d".
+	public void event(char type, double x, int newIntersections);
+
+	// STATUS: "status: %d:", then " %d" for each of the ids, bottom first,
+	// then a line separator. The ids may come in several parts, so that a
+	// large status is streamed rather than copied whole.
+	public void statusStart(int lineNo);
+
+	public void statusIds(int[] lineIds, int count);
+
+	public void statusEnd();
+
+	// RUN: "summary: %d segments , %d intersections".
+	public void summary(int segments, int intersections);
+
+	// STEP or STEP -p with nothing left: "error: no more events".
+	public void noMoreEvents();
+
+	public void flush();
+}
@@ -0,0 +1,198 @@
+package output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * The command output as text, formatted straight into a large buffer that is
+ * written out when full or flushed. The bytes are those of the original
+ * printf calls, without parsing a format per call.
+ */
+public class TextSink implements OutputSink {
+	static final int BUFFER = 1 << 16;
+	// Fixed-point output is formatted directly below this magnitude; the
+	// rounding of larger values is left to Formatter.
+	static final double DIRECT_LIMIT = 1e9;
+	// Products this close to a rounding tie are also left to Formatter.
+	static final double TIE_MARGIN = 1e-4;
+
+	static final byte[] EVENT = ascii("event: ");
+	static final byte[] STATUS = ascii("status: ");
+	static final byte[] SUMMARY = ascii("summary: ");
+	static final byte[] SEGMENTS = ascii(" segments , ");
+	static final byte[] INTERSECTIONS = ascii(" intersections\n");
+	static final byte[] NO_MORE_EVENTS = ascii("error: no more events\n");
+	// STATUS ends with println.
+	static final byte[] LINE_SEPARATOR = ascii(System.lineSeparator());
+
+	OutputStream out;
+	byte[] bytes;
+	int length;
+
+	public TextSink(OutputStream out) {
+		this(out, BUFFER);
+	}
+
+	public TextSink(OutputStream out, int bufferSize) {
+		this.out = out;
+		// At least room for any record but the ids of a status.
+		this.bytes = new byte[Math.max(bufferSize, 128)];
+	}
+
+	public void event(char type, double x, int newIntersections) {
+		this.reserve(64);
+		this.append(EVENT);
+		this.bytes[this.length++] = (byte) type;
+		this.bytes[this.length++] = ' ';
+		this.appendFixed(x);
+		this.bytes[this.length++] = ' ';
+		this.appendInt(newIntersections);
+		this.bytes[this.length++] = '\n';
+	}
+
+	public void statusStart(int lineNo) {
+		this.reserve(32);
+		this.append(STATUS);
+		this.appendInt(lineNo);
+		this.bytes[this.length++] = ':';
+	}
+
+	public void statusIds(int[] lineIds, int count) {
+		for (int i = 0; i < count; i++) {
+			this.reserve(16);
+			this.bytes[this.length++] = ' ';
+			this.appendInt(lineIds[i]);
+		}
+	}
+
+	public void statusEnd() {
+		this.reserve(LINE_SEPARATOR.length);
+		this.append(LINE_SEPARATOR);
+	}
+
+	public void summary(int segments, int intersections) {
+		this.reserve(64);
+		this.append(SUMMARY);
+		this.appendInt(segments);
+		this.append(SEGMENTS);
+		this.appendInt(intersections);
+		this.append(INTERSECTIONS);
+	}
+
+	public void noMoreEvents() {
+		this.reserve(NO_MORE_EVENTS.length);
+		this.append(NO_MORE_EVENTS);
+	}
+
+	public void flush() {
+		try {
+			this.drain();
+			this.flushOut();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Writes the buffered bytes.
+	protected void write(byte[] bytes, int length) throws IOException {
+		this.out.write(bytes, 0, length);
+	}
+
+	protected void flushOut() throws IOException {
+		this.out.flush();
+	}
+
+	void drain() throws IOException {
+		if (this.length > 0)
+			this.write(this.bytes, this.length);
+		this.length = 0;
+	}
+
+	// Makes room for n more bytes.
+	void reserve(int n) {
+		if (this.length + n <= this.bytes.length)
+			return;
+		try {
+			this.drain();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	void append(byte[] text) {
+		System.arraycopy(text, 0, this.bytes, this.length, text.length);
+		this.length += text.length;
+	}
+
+	// Appends text of any length, writing it directly past the buffer size.
+	void appendText(byte[] text) {
+		this.reserve(text.length);
+		if (text.length <= this.bytes.length) {
+			this.append(text);
+			return;
+		}
+		try {
+			this.write(text, text.length);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	void appendInt(long value) {
+		if (value < 0) {
+			if (value == Long.MIN_VALUE) {
+				this.appendText(ascii(Long.toString(value)));
+				return;
+			}
+			this.bytes[this.length++] = '-';
+			value = -value;
+		}
+		int digits = 1;
+		for (long v = value; v >= 10; v /= 10)
+			digits++;
+		for (int i = this.length + digits - 1; i >= this.length; i--) {
+			this.bytes[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		this.length += digits;
+	}
+
+	/*
+	 * Appends x as %6.2f. Formatter rounds the decimal digits of x half up;
+	 * below DIRECT_LIMIT, x * 100 is within TIE_MARGIN of those digits, so
+	 * the same rounding follows from it unless it is close to a tie.
+	 */
+	void appendFixed(double x) {
+		double v = Math.abs(x);
+		double scaled = v * 100;
+		long whole = (long) scaled;
+		double fraction = scaled - whole;
+		if (!(v < DIRECT_LIMIT) || Math.abs(fraction - 0.5) < TIE_MARGIN) {
+			this.appendText(ascii(String.format(Locale.ROOT, "%6.2f", x)));
+			return;
+		}
+		if (fraction > 0.5)
+			whole++;
+
+		// Sign, integer part, point and two decimals, padded to 6.
+		boolean negative = Double.compare(x, 0.0) < 0;
+		int digits = 1;
+		for (long w = whole / 100; w >= 10; w /= 10)
+			digits++;
+		for (int pad = 6 - (negative ? 1 : 0) - digits - 3; pad > 0; pad--)
+			this.bytes[this.length++] = ' ';
+		if (negative)
+			this.bytes[this.length++] = '-';
+		this.appendInt(whole / 100);
+		this.bytes[this.length++] = '.';
+		this.bytes[this.length++] = (byte) ('0' + whole / 10 % 10);
+		this.bytes[this.length++] = (byte) ('0' + whole % 10);
+	}
+
+	static byte[] ascii(String text) {
+		return text.getBytes(StandardCharsets.US_ASCII);
+	}
+}
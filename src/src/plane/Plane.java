@@ -1,51 +1,94 @@
 package plane;
+import input.BinaryInput;
 import input.CommandType;
 import input.InputSolver;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.List;
 
+import output.OutputSink;
+import output.TextSink;
+
+import red_black_tree.ArrayRedBlackTree;
 import red_black_tree.RedBlackTree;
 import basic_geometric_entities.Line;
+import basic_geometric_entities.LineStore;
+import basic_geometric_entities.SweepPosition;
+import eventhandler.IntersectionSink;
+import eventhandler.RenderListener;
 import events.Event;
 import events.EventQueue;
-import events.EventType;
 
 public class Plane {
 	int lineNo;
-	public ArrayList<Line> lines;
+	// Read-only; for a binary input a view of the line store.
+	public List<Line> lines;
+	// The same lines, stored column-wise for the sweep.
+	public LineStore lineStore;
 	public ArrayList<CommandType> commands;
 	
 	public EventQueue events;
 	public RedBlackTree sweepLine;
 	public RedBlackTree rootNode;
+	// The status in arrays instead, if not null (see useArrayStatus).
+	public ArrayRedBlackTree arrayStatus;
+	// Position the sweep line status is ordered at.
+	public SweepPosition sweep;
 	
 	public int intersectionNo;
+	// Keep intersection events only for lines that are currently adjacent in
+	// the status, so that the queue holds O(n) events instead of O(n + k).
+	public boolean boundedEvents;
+	// Notified of each handled event, to draw it (null when headless).
+	public RenderListener renderListener;
+	// Notified of each intersection found (null when only counting).
+	public IntersectionSink intersectionSink;
+	// Scratch space for the intersections of two lines.
+	public double[] roots = new double[2];
+	// Intersections past this x are left to another sweep (see the slab
+	// constructor).
+	public double sweepEnd = Double.POSITIVE_INFINITY;
+	// Where the command output goes, as text unless outputSink is set.
+	public PrintStream out = System.out;
+	public OutputSink outputSink;
+	// Scratch space for streaming the status.
+	int[] statusPart = new int[256];
 	
 	public Plane(String inputText) {
 		this.intersectionNo = 0;
 		
-		InputSolver inputData = new InputSolver(inputText);
-	
-		this.lineNo = inputData.getLineNo();
-		// Line equations stored in an array (taken from input file).
-		this.lines = new ArrayList<Line>(inputData.getLines()); 
+		if (BinaryInput.isBinary(inputText)) {
+			// Loaded column-wise, without an object per line.
+			BinaryInput inputData = new BinaryInput(inputText);
+			this.lineNo = inputData.lineNo;
+			this.lineStore = inputData.lineStore;
+			this.lines = this.lineStore.asList();
+			this.commands = inputData.commands;
+		} else {
+			InputSolver inputData = new InputSolver(inputText);
 		
-		// Commands stored in an array to be handled.
-		this.commands = new ArrayList<CommandType>(inputData.getCommands());
+			this.lineNo = inputData.getLineNo();
+			// Line equations stored in an array (taken from input file).
+			this.lines = new ArrayList<Line>(inputData.getLines()); 
+			this.lineStore = new LineStore(this.lines);
+			
+			// Commands stored in an array to be handled.
+			this.commands = new ArrayList<CommandType>(inputData.getCommands());
+		}
 		
 		// Events stored in Priority Queue.
 		this.events = new EventQueue(new Event());
 		
-		// Enqueue initial events (start/end points).
-		for (Line l : this.lines) {
-			this.events.add(new Event(l.getStartPoint().x, EventType.START, l));
-			this.events.add(new Event(l.getEndPoint().x, EventType.END, l));
-		}
+		// Schedule initial events (start/end points), sorted in bulk.
+		this.events.scheduleEndpoints(this.lineStore,
+				Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
 		
 		
 		//Sweep line stored in a Red-Black tree.
-		this.sweepLine = new RedBlackTree();
+		this.sweepLine = new RedBlackTree(this.lineNo);
 		this.rootNode = this.sweepLine;
+		this.sweep = new SweepPosition(Double.NEGATIVE_INFINITY);
 		
 //		System.out.println("STARTING AT " + startingX);
 	
@@ -55,6 +98,45 @@ public class Plane {
 	}
 	
 	
+	/**
+	 * The part of a plane's sweep over the slab (left, right]: the events of
+	 * its lines within the slab, with the status empty at left. The lines are
+	 * shared with the whole plane, so it must not be modified meanwhile.
+	 */
+	public Plane(Plane whole, double left, double right) {
+		this.intersectionNo = 0;
+		this.lineNo = whole.lineNo;
+		this.lines = whole.lines;
+		this.lineStore = whole.lineStore;
+		this.commands = new ArrayList<CommandType>();
+
+		this.events = new EventQueue(new Event());
+		this.events.scheduleEndpoints(this.lineStore, left, right);
+
+		this.sweepLine = new RedBlackTree(this.lineNo);
+		this.rootNode = this.sweepLine;
+		this.sweep = new SweepPosition(left);
+		this.sweepEnd = right;
+		this.boundedEvents = whole.boundedEvents;
+	}
+	
+	/**
+	 * An empty plane over the lines of a store, with nothing scheduled: the
+	 * caller feeds it the events (see ExternalSweep).
+	 */
+	public Plane(LineStore store) {
+		this.intersectionNo = 0;
+		this.lineNo = store.size;
+		this.lines = store.asList();
+		this.lineStore = store;
+		this.commands = new ArrayList<CommandType>();
+
+		this.events = new EventQueue(new Event());
+		this.sweepLine = new RedBlackTree(store.a.length);
+		this.rootNode = this.sweepLine;
+		this.sweep = new SweepPosition(Double.NEGATIVE_INFINITY);
+	}
+	
 	public void printInput() {
 		this.printLines();
 		this.printCommands();
@@ -78,7 +160,7 @@ public class Plane {
 	}
 	public void printEvents() {
 		System.out.println("^^^^^^^^^^^^^^Printing events^^^^^^^^^^^^^^^");
-		for (Event e : this.events.priorityQueue)
+		for (Event e : this.events.toList())
 			System.out.println(e.toString());
 		System.out.println();
 		System.out.println();
@@ -89,14 +171,87 @@ public class Plane {
 		this.printSweepLine();
 	}
 	
+	// Streams the ids to the output through a small array, in order.
 	public void printStatus() {
-		int lineNo = this.sweepLine.countTree(rootNode.root());
-		System.out.printf("status: %d:", lineNo);
-		ArrayList<Integer> lineIDs = new ArrayList<Integer>(RedBlackTree.fillIDs(rootNode.root()));
-		for (Integer id : lineIDs) {
-			System.out.printf(" %d", id);
+		OutputSink output = this.output();
+		output.statusStart(this.statusSize());
+		int count = 0;
+		if (this.arrayStatus != null) {
+			ArrayRedBlackTree status = this.arrayStatus;
+			int node = status.first();
+			for (; node != ArrayRedBlackTree.NIL; node = status.successor(node)) {
+				if (count == this.statusPart.length) {
+					output.statusIds(this.statusPart, count);
+					count = 0;
+				}
+				this.statusPart[count++] = status.lineId[node];
+			}
+		} else if (!rootNode.root().isEmpty()) {
+			RedBlackTree node = rootNode.root().select(0);
+			for (; node != null; node = node.successor()) {
+				if (count == this.statusPart.length) {
+					output.statusIds(this.statusPart, count);
+					count = 0;
+				}
+				this.statusPart[count++] = node.value.lineId;
+			}
 		}
-		System.out.println();
+		output.statusIds(this.statusPart, count);
+		output.statusEnd();
+	}
+	
+	// Number of lines in the status, in O(1).
+	public int statusSize() {
+		if (this.arrayStatus != null)
+			return this.arrayStatus.size();
+		return rootNode.root().size;
+	}
+	
+	// Id of the line at a position of the status, counted from 0 at the
+	// bottom, in O(log n).
+	public int statusLine(int rank) {
+		if (this.arrayStatus != null)
+			return this.arrayStatus.lineId[this.arrayStatus.select(rank)];
+		return rootNode.root().select(rank).value.lineId;
+	}
+	
+	// How many lines of the status lie below one in it, in O(log n); -1 if
+	// the line is not in the status.
+	public int linesBelow(int lineId) {
+		if (this.arrayStatus != null) {
+			int node = this.arrayStatus.node(lineId);
+			return (node == ArrayRedBlackTree.NIL) ? -1 : this.arrayStatus
+					.rank(node);
+		}
+		RedBlackTree node = rootNode.root().locateByID(lineId);
+		return (node == null) ? -1 : node.rank();
+	}
+	
+	// Ids of the lines in the status, bottom first.
+	public int[] statusIDs() {
+		int[] lineIDs = new int[this.statusSize()];
+		if (this.arrayStatus != null)
+			this.arrayStatus.fillIDs(lineIDs, 0);
+		else
+			RedBlackTree.fillIDs(rootNode.root(), lineIDs, 0);
+		return lineIDs;
+	}
+	
+	/**
+	 * Keeps the status in an ArrayRedBlackTree from now on, which allocates
+	 * no nodes as the sweep goes. Meant to be called before the first event.
+	 */
+	public void useArrayStatus() {
+		this.arrayStatus = new ArrayRedBlackTree(this.lineStore, this.sweep,
+				this.lineStore.size);
+	}
+	
+	// The sink of the command output; by default a buffer over out, made
+	// when first written to.
+	public OutputSink output() {
+		if (this.outputSink == null)
+			this.outputSink = new TextSink(this.out);
+		return this.outputSink;
 	}
 	
 }
\ No newline at end of file
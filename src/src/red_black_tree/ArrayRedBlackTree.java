@@ -0,0 +1,496 @@
+package red_black_tree;
+
+import java.util.Arrays;
+
+import basic_geometric_entities.LineInstance;
+import basic_geometric_entities.LineStore;
+import basic_geometric_entities.SweepPosition;
+
+/**
+ * A sweep line status stored in parallel arrays instead of node objects.
+ * Nodes are int indices, with the line id and its cached y inline; node 0 is
+ * the empty leaf, shared by the whole tree. Removed nodes go to a free list
+ * and are reused, so once the arrays have grown to the largest status the
+ * tree allocates nothing.
+ *
+ * Lines are ordered as LineInstance.compareAt orders them at the sweep
+ * position, so the tree holds the same order as a RedBlackTree status as
+ * long as the status is in order. (Where rounding has left it out of order,
+ * an insertion may land elsewhere, as the two trees are shaped differently.)
+ * Insertion and deletion are those of Cormen et al.
+ */
+public class ArrayRedBlackTree {
+	// The empty leaf: black, and the parent of the root.
+	public static final int NIL = 0;
+
+	public int[] left;
+	public int[] right;
+	public int[] parent;
+	public int[] lineId;
+	public boolean[] isRed;
+	// Nodes in the subtree of each node (0 for NIL).
+	public int[] count;
+	// y of the node's line at the sweep position keyX.
+	double[] key;
+	double[] keyX;
+	// Node of each line id, or NIL.
+	int[] nodeOf;
+
+	public int root = NIL;
+	int size;
+	// Nodes used so far, and the first free one (chained through left).
+	int nodeNo = 1;
+	int free = NIL;
+
+	LineStore store;
+	SweepPosition sweep;
+
+	public ArrayRedBlackTree(LineStore store, SweepPosition sweep, int capacity) {
+		this.store = store;
+		this.sweep = sweep;
+		capacity = Math.max(capacity + 1, 16);
+		this.left = new int[capacity];
+		this.right = new int[capacity];
+		this.parent = new int[capacity];
+		this.lineId = new int[capacity];
+		this.isRed = new boolean[capacity];
+		this.count = new int[capacity];
+		this.key = new double[capacity];
+		this.keyX = new double[capacity];
+		this.nodeOf = new int[Math.max(store.size, 1)];
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	// The node holding a line, or NIL.
+	public int node(int lineId) {
+		return (lineId < this.nodeOf.length) ? this.nodeOf[lineId] : NIL;
+	}
+
+	/**
+	 * Inserts a line at its place at the sweep position; returns its node.
+	 *
+	 * @pre the line is not in the tree
+	 */
+	public int insert(int lineId) {
+		double x = this.sweep.x;
+		double y = this.store.getY(lineId, x);
+		int node = this.allocate(lineId);
+		this.key[node] = y;
+		this.keyX[node] = x;
+
+		int above = NIL, at = this.root;
+		boolean toLeft = false;
+		while (at != NIL) {
+			above = at;
+			this.count[at]++;
+			toLeft = this.compare(lineId, y, at) < 0;
+			at = toLeft ? this.left[at] : this.right[at];
+		}
+		this.parent[node] = above;
+		if (above == NIL)
+			this.root = node;
+		else if (toLeft)
+			this.left[above] = node;
+		else
+			this.right[above] = node;
+		this.size++;
+		this.insertFixup(node);
+		return node;
+	}
+
+	// Removes a line's node; the node is then reused.
+	public void remove(int node) {
+		// The node taken out of its place: this one, or its successor.
+		int spliced = (this.left[node] == NIL || this.right[node] == NIL) ? node
+				: this.minimum(this.right[node]);
+		for (int up = this.parent[spliced]; up != NIL; up = this.parent[up])
+			this.count[up]--;
+
+		int moved = node, child;
+		boolean movedRed = this.isRed[moved];
+		if (this.left[node] == NIL) {
+			child = this.right[node];
+			this.transplant(node, child);
+		} else if (this.right[node] == NIL) {
+			child = this.left[node];
+			this.transplant(node, child);
+		} else {
+			moved = this.minimum(this.right[node]);
+			movedRed = this.isRed[moved];
+			child = this.right[moved];
+			if (this.parent[moved] == node)
+				this.parent[child] = moved;
+			else {
+				this.transplant(moved, child);
+				this.right[moved] = this.right[node];
+				this.parent[this.right[moved]] = moved;
+			}
+			this.transplant(node, moved);
+			this.left[moved] = this.left[node];
+			this.parent[this.left[moved]] = moved;
+			this.isRed[moved] = this.isRed[node];
+			this.count[moved] = this.count[node];
+		}
+		if (!movedRed)
+			this.deleteFixup(child);
+		this.size--;
+		this.release(node);
+	}
+
+	/*
+	 * Exchanges the lines of two nodes, e.g. two neighbours that cross at the
+	 * sweep position; the nodes stay where they are.
+	 */
+	public void swap(int node1, int node2) {
+		int id1 = this.lineId[node1], id2 = this.lineId[node2];
+		double key1 = this.key[node1], keyX1 = this.keyX[node1];
+		this.lineId[node1] = id2;
+		this.key[node1] = this.key[node2];
+		this.keyX[node1] = this.keyX[node2];
+		this.lineId[node2] = id1;
+		this.key[node2] = key1;
+		this.keyX[node2] = keyX1;
+		this.nodeOf[id1] = node2;
+		this.nodeOf[id2] = node1;
+	}
+
+	public int first() {
+		return (this.root == NIL) ? NIL : this.minimum(this.root);
+	}
+
+	// The next node in order, or NIL.
+	public int successor(int node) {
+		if (this.right[node] != NIL)
+			return this.minimum(this.right[node]);
+		int up = this.parent[node];
+		while (up != NIL && node == this.right[up]) {
+			node = up;
+			up = this.parent[up];
+		}
+		return up;
+	}
+
+	// The previous node in order, or NIL.
+	public int predecessor(int node) {
+		if (this.left[node] != NIL) {
+			node = this.left[node];
+			while (this.right[node] != NIL)
+				node = this.right[node];
+			return node;
+		}
+		int up = this.parent[node];
+		while (up != NIL && node == this.left[up]) {
+			node = up;
+			up = this.parent[up];
+		}
+		return up;
+	}
+
+	// The node at a position, counted from 0 in order.
+	public int select(int rank) {
+		int node = this.root;
+		while (rank != this.count[this.left[node]]) {
+			if (rank < this.count[this.left[node]])
+				node = this.left[node];
+			else {
+				rank -= this.count[this.left[node]] + 1;
+				node = this.right[node];
+			}
+		}
+		return node;
+	}
+
+	// The position of a node, i.e. the number of nodes before it.
+	public int rank(int node) {
+		int rank = this.count[this.left[node]];
+		for (int up = this.parent[node]; up != NIL; up = this.parent[up]) {
+			if (node == this.right[up])
+				rank += this.count[this.left[up]] + 1;
+			node = up;
+		}
+		return rank;
+	}
+
+	// The line ids in order, into lineIds from position next; returns the end.
+	public int fillIDs(int[] lineIds, int next) {
+		for (int node = this.first(); node != NIL; node = this.successor(node))
+			lineIds[next++] = this.lineId[node];
+		return next;
+	}
+
+	/**
+	 * Builds a tree of the lines in the order given, without comparing them,
+	 * as RedBlackTree.build does: balanced, with only its deepest level red.
+	 *
+	 * @pre the tree is empty; lineIds are in status order
+	 */
+	public void build(int[] lineIds) {
+		if (lineIds.length == 0)
+			return;
+		int redDepth = 31 - Integer.numberOfLeadingZeros(lineIds.length);
+		this.root = this.build(lineIds, 0, lineIds.length, 0, redDepth);
+		this.parent[this.root] = NIL;
+		this.size = lineIds.length;
+	}
+
+	int build(int[] lineIds, int from, int to, int depth, int redDepth) {
+		int middle = (from + to) >>> 1;
+		int node = this.allocate(lineIds[middle]);
+		this.key[node] = this.store.getY(lineIds[middle], this.sweep.x);
+		this.keyX[node] = this.sweep.x;
+		this.isRed[node] = depth > 0 && depth == redDepth;
+		this.count[node] = to - from;
+		if (from < middle) {
+			this.left[node] = this.build(lineIds, from, middle, depth + 1,
+					redDepth);
+			this.parent[this.left[node]] = node;
+		}
+		if (middle + 1 < to) {
+			this.right[node] = this.build(lineIds, middle + 1, to, depth + 1,
+					redDepth);
+			this.parent[this.right[node]] = node;
+		}
+		return node;
+	}
+
+	/*
+	 * Order of a line, whose y at the sweep position is y, and a node's line,
+	 * as LineInstance.compareAt gives it. The node's y is computed at most
+	 * once per sweep position.
+	 */
+	int compare(int lineId, double y, int node) {
+		double x = this.sweep.x;
+		if (this.keyX[node] != x) {
+			this.key[node] = this.store.getY(this.lineId[node], x);
+			this.keyX[node] = x;
+		}
+		double y2 = this.key[node];
+		double tolerance = LineInstance.EPSILON
+				* Math.max(1, Math.max(Math.abs(y), Math.abs(y2)));
+		if (y < y2 - tolerance)
+			return -1;
+		if (y > y2 + tolerance)
+			return 1;
+
+		int other = this.lineId[node];
+		double slope1 = this.store.getSlope(lineId, x), slope2 = this.store
+				.getSlope(other, x);
+		if (slope1 != slope2)
+			return (slope1 < slope2) ? -1 : 1;
+		double curve1 = this.store.a[lineId], curve2 = this.store.a[other];
+		if (curve1 != curve2)
+			return (curve1 < curve2) ? -1 : 1;
+		return (lineId < other) ? -1 : 1;
+	}
+
+	int allocate(int lineId) {
+		int node = this.free;
+		if (node != NIL)
+			this.free = this.left[node];
+		else {
+			if (this.nodeNo == this.left.length)
+				this.grow(2 * this.nodeNo);
+			node = this.nodeNo++;
+		}
+		this.left[node] = this.right[node] = NIL;
+		this.isRed[node] = true;
+		this.count[node] = 1;
+		this.lineId[node] = lineId;
+		if (lineId >= this.nodeOf.length)
+			this.nodeOf = Arrays.copyOf(this.nodeOf, Math.max(lineId + 1,
+					2 * this.nodeOf.length));
+		this.nodeOf[lineId] = node;
+		return node;
+	}
+
+	void release(int node) {
+		if (this.nodeOf[this.lineId[node]] == node)
+			this.nodeOf[this.lineId[node]] = NIL;
+		this.left[node] = this.free;
+		this.free = node;
+	}
+
+	void grow(int capacity) {
+		this.left = Arrays.copyOf(this.left, capacity);
+		this.right = Arrays.copyOf(this.right, capacity);
+		this.parent = Arrays.copyOf(this.parent, capacity);
+		this.lineId = Arrays.copyOf(this.lineId, capacity);
+		this.isRed = Arrays.copyOf(this.isRed, capacity);
+		this.count = Arrays.copyOf(this.count, capacity);
+		this.key = Arrays.copyOf(this.key, capacity);
+		this.keyX = Arrays.copyOf(this.keyX, capacity);
+	}
+
+	int minimum(int node) {
+		while (this.left[node] != NIL)
+			node = this.left[node];
+		return node;
+	}
+
+	// Puts the subtree at to in the place of the subtree at from.
+	void transplant(int from, int to) {
+		int up = this.parent[from];
+		if (up == NIL)
+			this.root = to;
+		else if (from == this.left[up])
+			this.left[up] = to;
+		else
+			this.right[up] = to;
+		this.parent[to] = up;
+	}
+
+	void rotateLeft(int node) {
+		int child = this.right[node];
+		this.right[node] = this.left[child];
+		if (this.left[child] != NIL)
+			this.parent[this.left[child]] = node;
+		this.transplant(node, child);
+		this.left[child] = node;
+		this.parent[node] = child;
+		this.count[child] = this.count[node];
+		this.count[node] = this.count[this.left[node]]
+				+ this.count[this.right[node]] + 1;
+	}
+
+	void rotateRight(int node) {
+		int child = this.left[node];
+		this.left[node] = this.right[child];
+		if (this.right[child] != NIL)
+			this.parent[this.right[child]] = node;
+		this.transplant(node, child);
+		this.right[child] = node;
+		this.parent[node] = child;
+		this.count[child] = this.count[node];
+		this.count[node] = this.count[this.left[node]]
+				+ this.count[this.right[node]] + 1;
+	}
+
+	void insertFixup(int node) {
+		while (this.isRed[this.parent[node]]) {
+			int up = this.parent[node], grand = this.parent[up];
+			if (up == this.left[grand]) {
+				int uncle = this.right[grand];
+				if (this.isRed[uncle]) {
+					this.isRed[up] = this.isRed[uncle] = false;
+					this.isRed[grand] = true;
+					node = grand;
+					continue;
+				}
+				if (node == this.right[up]) {
+					node = up;
+					this.rotateLeft(node);
+					up = this.parent[node];
+				}
+				this.isRed[up] = false;
+				this.isRed[grand] = true;
+				this.rotateRight(grand);
+			} else {
+				int uncle = this.left[grand];
+				if (this.isRed[uncle]) {
+					this.isRed[up] = this.isRed[uncle] = false;
+					this.isRed[grand] = true;
+					node = grand;
+					continue;
+				}
+				if (node == this.left[up]) {
+					node = up;
+					this.rotateRight(node);
+					up = this.parent[node];
+				}
+				this.isRed[up] = false;
+				this.isRed[grand] = true;
+				this.rotateLeft(grand);
+			}
+		}
+		this.isRed[this.root] = false;
+	}
+
+	// Restores the black height above node, which lost a black level.
+	void deleteFixup(int node) {
+		while (node != this.root && !this.isRed[node]) {
+			int up = this.parent[node];
+			if (node == this.left[up]) {
+				int sibling = this.right[up];
+				if (this.isRed[sibling]) {
+					this.isRed[sibling] = false;
+					this.isRed[up] = true;
+					this.rotateLeft(up);
+					sibling = this.right[up];
+				}
+				if (!this.isRed[this.left[sibling]]
+						&& !this.isRed[this.right[sibling]]) {
+					this.isRed[sibling] = true;
+					node = up;
+					continue;
+				}
+				if (!this.isRed[this.right[sibling]]) {
+					this.isRed[this.left[sibling]] = false;
+					this.isRed[sibling] = true;
+					this.rotateRight(sibling);
+					sibling = this.right[up];
+				}
+				this.isRed[sibling] = this.isRed[up];
+				this.isRed[up] = false;
+				this.isRed[this.right[sibling]] = false;
+				this.rotateLeft(up);
+			} else {
+				int sibling = this.left[up];
+				if (this.isRed[sibling]) {
+					this.isRed[sibling] = false;
+					this.isRed[up] = true;
+					this.rotateRight(up);
+					sibling = this.left[up];
+				}
+				if (!this.isRed[this.left[sibling]]
+						&& !this.isRed[this.right[sibling]]) {
+					this.isRed[sibling] = true;
+					node = up;
+					continue;
+				}
+				if (!this.isRed[this.left[sibling]]) {
+					this.isRed[this.right[sibling]] = false;
+					this.isRed[sibling] = true;
+					this.rotateLeft(sibling);
+					sibling = this.left[up];
+				}
+				this.isRed[sibling] = this.isRed[up];
+				this.isRed[up] = false;
+				this.isRed[this.left[sibling]] = false;
+				this.rotateRight(up);
+			}
+			node = this.root;
+		}
+		this.isRed[node] = false;
+	}
+
+	/*
+	 * Checks the red-black properties, the links and the counts; returns the black
+	 * height, or -1 if they do not hold.
+	 */
+	public int blackHeight(int node) {
+		if (node == NIL)
+			return this.isRed[NIL] ? -1 : 0;
+		if (this.isRed[node]
+				&& (this.isRed[this.left[node]] || this.isRed[this.right[node]]))
+			return -1;
+		if (this.nodeOf[this.lineId[node]] != node
+				|| this.count[node] != this.count[this.left[node]]
+						+ this.count[this.right[node]] + 1)
+			return -1;
+		for (int child : new int[] { this.left[node], this.right[node] })
+			if (child != NIL && this.parent[child] != node)
+				return -1;
+		int left = this.blackHeight(this.left[node]);
+		int right = this.blackHeight(this.right[node]);
+		if (left < 0 || left != right)
+			return -1;
+		return left + (this.isRed[node] ? 0 : 1);
+	}
+}
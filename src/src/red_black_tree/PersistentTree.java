@@ -0,0 +1,268 @@
+package red_black_tree;
+
+import basic_geometric_entities.LineStore;
+
+/**
+ * An immutable red-black tree of line ids: updates copy the path they
+ * change and share the rest, so every earlier root stays a valid tree, at
+ * O(log n) new nodes per update. The empty tree is null.
+ *
+ * Ids are ordered by an Order given with each update; nodes also keep the
+ * size of their subtree, so positions are found in O(log n). Insertion is
+ * Okasaki's, deletion Kahrs'.
+ */
+public final class PersistentTree {
+	public final int lineId;
+	public final PersistentTree left;
+	public final PersistentTree right;
+	public final boolean isRed;
+	// Nodes in this subtree.
+	public final int size;
+
+	/** Relative order of two line ids, as in the status being recorded. */
+	public interface Order {
+		public int compare(int lineId1, int lineId2);
+	}
+
+	PersistentTree(boolean isRed, PersistentTree left, int lineId,
+			PersistentTree right) {
+		this.isRed = isRed;
+		this.left = left;
+		this.lineId = lineId;
+		this.right = right;
+		this.size = size(left) + 1 + size(right);
+	}
+
+	public static int size(PersistentTree t) {
+		return (t == null) ? 0 : t.size;
+	}
+
+	// The id at a position, counted from 0 in order.
+	public static int get(PersistentTree t, int rank) {
+		while (true) {
+			int leftSize = size(t.left);
+			if (rank == leftSize)
+				return t.lineId;
+			if (rank < leftSize)
+				t = t.left;
+			else {
+				rank -= leftSize + 1;
+				t = t.right;
+			}
+		}
+	}
+
+	// Position of an id, or -1 if it is not in the tree.
+	public static int rank(PersistentTree t, int lineId, Order order) {
+		int rank = 0;
+		while (t != null) {
+			int relation = (t.lineId == lineId) ? 0 : order.compare(lineId,
+					t.lineId);
+			if (relation == 0)
+				return rank + size(t.left);
+			if (relation < 0)
+				t = t.left;
+			else {
+				rank += size(t.left) + 1;
+				t = t.right;
+			}
+		}
+		return -1;
+	}
+
+	// The ids in order, into lineIds from position next; returns the end.
+	public static int fillIDs(PersistentTree t, int[] lineIds, int next) {
+		if (t == null)
+			return next;
+		next = fillIDs(t.left, lineIds, next);
+		lineIds[next] = t.lineId;
+		return fillIDs(t.right, lineIds, next + 1);
+	}
+
+	/*
+	 * Number of lines whose y at x is at most y, for a tree ordered by y at
+	 * x: the position just above the point (x, y).
+	 */
+	public static int countBelow(PersistentTree t, LineStore store, double x,
+			double y) {
+		int count = 0;
+		while (t != null) {
+			if (store.getY(t.lineId, x) <= y) {
+				count += size(t.left) + 1;
+				t = t.right;
+			} else
+				t = t.left;
+		}
+		return count;
+	}
+
+	public static PersistentTree insert(PersistentTree t, int lineId,
+			Order order) {
+		return blacken(ins(t, lineId, order));
+	}
+
+	// The tree without an id, which must be in it.
+	public static PersistentTree delete(PersistentTree t, int lineId,
+			Order order) {
+		return blacken(del(t, lineId, order));
+	}
+
+	// The tree with another id at a position.
+	public static PersistentTree set(PersistentTree t, int rank, int lineId) {
+		int leftSize = size(t.left);
+		if (rank == leftSize)
+			return new PersistentTree(t.isRed, t.left, lineId, t.right);
+		if (rank < leftSize)
+			return new PersistentTree(t.isRed, set(t.left, rank, lineId),
+					t.lineId, t.right);
+		return new PersistentTree(t.isRed, t.left, t.lineId, set(t.right, rank
+				- leftSize - 1, lineId));
+	}
+
+	static PersistentTree ins(PersistentTree t, int lineId, Order order) {
+		if (t == null)
+			return new PersistentTree(true, null, lineId, null);
+		boolean smaller = order.compare(lineId, t.lineId) < 0;
+		if (t.isRed)
+			return smaller ? new PersistentTree(true, ins(t.left, lineId,
+					order), t.lineId, t.right) : new PersistentTree(true,
+					t.left, t.lineId, ins(t.right, lineId, order));
+		return smaller ? balance(ins(t.left, lineId, order), t.lineId, t.right)
+				: balance(t.left, t.lineId, ins(t.right, lineId, order));
+	}
+
+	static PersistentTree del(PersistentTree t, int lineId, Order order) {
+		if (t == null)
+			throw new IllegalArgumentException("no line " + lineId);
+		int relation = (t.lineId == lineId) ? 0 : order.compare(lineId,
+				t.lineId);
+		if (relation == 0)
+			return append(t.left, t.right);
+		if (relation < 0)
+			return isBlack(t.left) ? balanceLeft(del(t.left, lineId, order),
+					t.lineId, t.right) : new PersistentTree(true, del(t.left,
+					lineId, order), t.lineId, t.right);
+		return isBlack(t.right) ? balanceRight(t.left, t.lineId, del(t.right,
+				lineId, order)) : new PersistentTree(true, t.left, t.lineId,
+				del(t.right, lineId, order));
+	}
+
+	// A black node over two subtrees, rotating away a red-red violation.
+	static PersistentTree balance(PersistentTree l, int lineId,
+			PersistentTree r) {
+		if (isRed(l) && isRed(r))
+			return new PersistentTree(true, blacken(l), lineId, blacken(r));
+		if (isRed(l) && isRed(l.left))
+			return new PersistentTree(true, blacken(l.left), l.lineId,
+					new PersistentTree(false, l.right, lineId, r));
+		if (isRed(l) && isRed(l.right))
+			return new PersistentTree(true, new PersistentTree(false, l.left,
+					l.lineId, l.right.left), l.right.lineId,
+					new PersistentTree(false, l.right.right, lineId, r));
+		if (isRed(r) && isRed(r.right))
+			return new PersistentTree(true, new PersistentTree(false, l,
+					lineId, r.left), r.lineId, blacken(r.right));
+		if (isRed(r) && isRed(r.left))
+			return new PersistentTree(true, new PersistentTree(false, l,
+					lineId, r.left.left), r.left.lineId, new PersistentTree(
+					false, r.left.right, r.lineId, r.right));
+		return new PersistentTree(false, l, lineId, r);
+	}
+
+	// Rebalances a node whose left subtree lost a black level.
+	static PersistentTree balanceLeft(PersistentTree l, int lineId,
+			PersistentTree r) {
+		if (isRed(l))
+			return new PersistentTree(true, blacken(l), lineId, r);
+		if (isBlack(r))
+			return balance(l, lineId, redden(r));
+		if (isRed(r) && isBlack(r.left))
+			return new PersistentTree(true, new PersistentTree(false, l,
+					lineId, r.left.left), r.left.lineId, balance(
+					r.left.right, r.lineId, redden(r.right)));
+		throw new IllegalStateException("unbalanced tree");
+	}
+
+	// Rebalances a node whose right subtree lost a black level.
+	static PersistentTree balanceRight(PersistentTree l, int lineId,
+			PersistentTree r) {
+		if (isRed(r))
+			return new PersistentTree(true, l, lineId, blacken(r));
+		if (isBlack(l))
+			return balance(redden(l), lineId, r);
+		if (isRed(l) && isBlack(l.right))
+			return new PersistentTree(true, balance(redden(l.left), l.lineId,
+					l.right.left), l.right.lineId, new PersistentTree(false,
+					l.right.right, lineId, r));
+		throw new IllegalStateException("unbalanced tree");
+	}
+
+	// Joins two subtrees of equal black height, all of l before all of r.
+	static PersistentTree append(PersistentTree l, PersistentTree r) {
+		if (l == null)
+			return r;
+		if (r == null)
+			return l;
+		if (l.isRed && r.isRed) {
+			PersistentTree middle = append(l.right, r.left);
+			if (isRed(middle))
+				return new PersistentTree(true, new PersistentTree(true,
+						l.left, l.lineId, middle.left), middle.lineId,
+						new PersistentTree(true, middle.right, r.lineId,
+								r.right));
+			return new PersistentTree(true, l.left, l.lineId,
+					new PersistentTree(true, middle, r.lineId, r.right));
+		}
+		if (!l.isRed && !r.isRed) {
+			PersistentTree middle = append(l.right, r.left);
+			if (isRed(middle))
+				return new PersistentTree(true, new PersistentTree(false,
+						l.left, l.lineId, middle.left), middle.lineId,
+						new PersistentTree(false, middle.right, r.lineId,
+								r.right));
+			return balanceLeft(l.left, l.lineId, new PersistentTree(false,
+					middle, r.lineId, r.right));
+		}
+		if (r.isRed)
+			return new PersistentTree(true, append(l, r.left), r.lineId,
+					r.right);
+		return new PersistentTree(true, l.left, l.lineId, append(l.right, r));
+	}
+
+	static boolean isRed(PersistentTree t) {
+		return t != null && t.isRed;
+	}
+
+	static boolean isBlack(PersistentTree t) {
+		return t != null && !t.isRed;
+	}
+
+	static PersistentTree blacken(PersistentTree t) {
+		return (t == null || !t.isRed) ? t : new PersistentTree(false, t.left,
+				t.lineId, t.right);
+	}
+
+	// A black node turned red, as deletion needs it.
+	static PersistentTree redden(PersistentTree t) {
+		if (!isBlack(t))
+			throw new IllegalStateException("unbalanced tree");
+		return new PersistentTree(true, t.left, t.lineId, t.right);
+	}
+
+	/*
+	 * Checks the red-black properties and sizes; returns the black height,
+	 * or -1 if they do not hold.
+	 */
+	public static int blackHeight(PersistentTree t) {
+		if (t == null)
+			return 0;
+		if (t.isRed && (isRed(t.left) || isRed(t.right)))
+			return -1;
+		if (t.size != size(t.left) + 1 + size(t.right))
+			return -1;
+		int left = blackHeight(t.left), right = blackHeight(t.right);
+		if (left < 0 || left != right)
+			return -1;
+		return left + (t.isRed ? 0 : 1);
+	}
+}
@@ -32,6 +32,18 @@ public class RedBlackTree {
 	 */
 	public boolean isRed;
 
+	/**
+	 * Nodes of this tree indexed by the id of the line they hold, or null. The
+	 * array is shared by every node of the tree, EMPTY leaves included.
+	 */
+	public RedBlackTree[] index;
+
+	/**
+	 * The number of nodes in the subtree rooted here (0 for EMPTY), kept
+	 * through insertions, removals and rotations
+	 */
+	public int size;
+
 	/**
 	 * the unique empty node; used as children on leaf trees and as empty search
 	 * trees.
@@ -61,11 +73,36 @@ public class RedBlackTree {
 	 * @post constructs a single node red-black tree
 	 */
 	public RedBlackTree(LineInstance v) {
+		this(v, null);
+	}
+
+	/**
+	 * Constructs an empty red-black tree that indexes its nodes by line id.
+	 * 
+	 * @param lineNo
+	 *            The number of line ids to index; larger ids are not indexed
+	 * @post constructs an empty tree with an id index of lineNo entries
+	 */
+	public RedBlackTree(int lineNo) {
+		this();
+		index = new RedBlackTree[lineNo];
+	}
+
+	/**
+	 * Constructs a single node red-black tree sharing the given id index.
+	 * 
+	 * @post constructs a single node red-black tree, registered in index
+	 */
+	private RedBlackTree(LineInstance v, RedBlackTree[] index) {
 		// Assert.pre(v != null, "Red-black tree values must be non-null.");
 		value = v;
 		parent = null;
 		left = right = new RedBlackTree();
+		left.index = index;
 		isRed = false; // roots of tree should be colored black
+		size = 1;
+		this.index = index;
+		indexNode();
 	}
 
 	/**
@@ -294,6 +331,10 @@ public class RedBlackTree {
 
 		// puts pivot below it (sets this's parent, as well)
 		newRoot.setRight(this);
+
+		// the new root spans what this node did
+		newRoot.size = size;
+		size = left.size + right.size + 1;
 		/**
          */
 
@@ -327,6 +368,10 @@ public class RedBlackTree {
 		// put pivot below it (sets this's parent, as well)
 		newRoot.setLeft(this);
 
+		// the new root spans what this node did
+		newRoot.size = size;
+		size = left.size + right.size + 1;
+
 		if (wasChild) {
 			if (wasRightChild)
 				parent.setRight(newRoot);
@@ -367,14 +412,17 @@ public class RedBlackTree {
 	public RedBlackTree insert(LineInstance c) {
 		// trivial case - tree was empty:
 		if (isEmpty())
-			return new RedBlackTree(c);
+			return new RedBlackTree(c, index);
+
+		// the value ends up below this node
+		size++;
 
 		// decide to insert value to left or right of root:
 		if (c.compareTo(value()) < 0) {
 
 			// if to left and no left child, we insert value as leaf
 			if (left().isEmpty()) {
-				RedBlackTree result = new RedBlackTree(c);
+				RedBlackTree result = new RedBlackTree(c, index);
 				setLeft(result);
 				return result;
 			} else {
@@ -385,7 +433,7 @@ public class RedBlackTree {
 
 			// if to right and no left child, we insert value as leaf
 			if (right().isEmpty()) {
-				RedBlackTree result = new RedBlackTree(c);
+				RedBlackTree result = new RedBlackTree(c, index);
 				setRight(result);
 				return result;
 			} else {
@@ -484,9 +532,22 @@ public class RedBlackTree {
 	public RedBlackTree remove(LineInstance c) {
 		// find the target node - the node whose value is removed
 		RedBlackTree target = locate(c);
-		if (target.isEmpty())
+		if (target == null || target.isEmpty())
 			return root();
 
+		return target.removeNode();
+	}
+
+	/**
+	 * Remove the value held by this node, without searching for it.
+	 * 
+	 * @return The new root of the tree
+	 * @pre this node is not EMPTY
+	 * @post the value of this node is removed; resulting tree is returned
+	 */
+	public RedBlackTree removeNode() {
+		RedBlackTree target = this;
+
 		// determine the node to be disconnected:
 		// two cases: if degree < 2 we remove target node;
 		// otherwise, remove predecessor
@@ -507,7 +568,16 @@ public class RedBlackTree {
 			// freeNode is predecessor
 		}
 
+		// freeNode leaves the subtrees of its ancestors
+		for (RedBlackTree up = freeNode.parent; up != null; up = up.parent)
+			up.size--;
+
+		LineInstance removed = target.value;
 		target.value = freeNode.value; // move value reference
+		target.indexNode();
+		if (index != null && removed.lineId < index.length
+				&& index[removed.lineId] == target)
+			index[removed.lineId] = null;
 
 		// child will be orphaned by the freeing of freeNode;
 		// reparent this child carefully (it may be EMPTY)
@@ -894,97 +964,106 @@ public class RedBlackTree {
 		RedBlackTree.inOrder(root.right);
 	}
 	
-	public static Double tempOldY;
-	public static void getOldY(LineInstance li, RedBlackTree root) {
-		if (root.value == null)
-			return;
-					
-		RedBlackTree.getOldY(li, root.left);
-		
-		if (root.value.lineId == li.lineId)
-			RedBlackTree.tempOldY = root.value.currentY;
-		
-		RedBlackTree.getOldY(li, root.right);
+	/* Last y of a line in the tree, or null if it is not in it. */
+	public static Double getOldY(LineInstance li, RedBlackTree root) {
+		return RedBlackTree.getOldYByID(li.lineId, root);
 	}
-	public static void getOldYL(Line li, RedBlackTree root) {
-	
-		if (root.value == null)
-			return;
-					
-		RedBlackTree.getOldYL(li, root.left);
-		
-		if (root.value.lineId == li.lineId)
-			RedBlackTree.tempOldY = root.value.currentY;
+	public static Double getOldYL(Line li, RedBlackTree root) {
+		return RedBlackTree.getOldYByID(li.lineId, root);
+	}
+	private static Double getOldYByID(int lineId, RedBlackTree root) {
+		RedBlackTree node = root.locateByID(lineId);
 		
-		RedBlackTree.getOldYL(li, root.right);
+		return (node == null) ? null : node.value.currentY;
+	}
+
+	/**
+	 * Returns the node following this one in order, walking the tree links.
+	 * 
+	 * @pre this node is not EMPTY
+	 * @post returns the in-order successor of this node, or null
+	 * @return The next node in order, or null if this is the last one
+	 */
+	public RedBlackTree successor() {
+		RedBlackTree node;
+		if (!right.isEmpty()) {
+			node = right;
+			while (!node.left.isEmpty())
+				node = node.left;
+			return node;
+		}
+		node = this;
+		while (node.isRightChild())
+			node = node.parent;
+		return node.parent;
+	}
+
+	/**
+	 * Returns the node preceding this one in order, walking the tree links.
+	 * 
+	 * @pre this node is not EMPTY
+	 * @post returns the in-order predecessor of this node, or null
+	 * @return The previous node in order, or null if this is the first one
+	 */
+	public RedBlackTree predecessor() {
+		RedBlackTree node;
+		if (!left.isEmpty()) {
+			node = left;
+			while (!node.right.isEmpty())
+				node = node.right;
+			return node;
+		}
+		node = this;
+		while (node.isLeftChild())
+			node = node.parent;
+		return node.parent;
 	}
 
 	public static RedBlackTree getSuccessor(RedBlackTree root,
 			RedBlackTree globalRoot) {
-		temp.clear();
-		RedBlackTree.getArrayInOrder(globalRoot);
-		int rootIndex = temp.indexOf(root);
-
-		if (rootIndex < temp.size() - 1)
-			return temp.get(rootIndex + 1);
-		else
+		if (root == null || root.isEmpty())
 			return null;
+		return root.successor();
 	}
 
 	public LineInstance getSuccessorLine(RedBlackTree globalRoot,
 			LineInstance cur) {
-		temp.clear();
-		RedBlackTree.getArrayInOrder(globalRoot);
-
-		RedBlackTree root = this.locate(cur);
+		RedBlackTree node = getSuccessor(this.locate(cur), globalRoot);
 
-		int rootIndex = temp.indexOf(root);
-
-		if (rootIndex < temp.size() - 1)
-			return temp.get(rootIndex + 1).value;
-		else
-			return null;
+		return (node == null) ? null : node.value;
 	}
 
 	public static RedBlackTree getPredecessor(RedBlackTree root,
 			RedBlackTree globalRoot) {
-		temp.clear();
-		RedBlackTree.getArrayInOrder(globalRoot);
-		int rootIndex = temp.indexOf(root);
-
-		if (rootIndex > 0)
-			return temp.get(rootIndex - 1);
-		else
+		if (root == null || root.isEmpty())
 			return null;
+		return root.predecessor();
 	}
 
 	public LineInstance getPredecessorLine(RedBlackTree globalRoot,
 			LineInstance cur) {
-		temp.clear();
-		RedBlackTree.getArrayInOrder(globalRoot);
-
-		RedBlackTree root = this.locate(cur);
-
-		int rootIndex = temp.indexOf(root);
+		RedBlackTree node = getPredecessor(this.locate(cur), globalRoot);
 
-		if (rootIndex > 0)
-			return temp.get(rootIndex - 1).value;
-		else
-			return null;
+		return (node == null) ? null : node.value;
 	}
 
-	public static ArrayList<RedBlackTree> temp = new ArrayList<RedBlackTree>();
-
-	public static void getArrayInOrder(RedBlackTree root) {
+	/* Nodes of the tree rooted at argument passed, in order. */
+	public static ArrayList<RedBlackTree> getArrayInOrder(RedBlackTree root) {
+		ArrayList<RedBlackTree> nodes = new ArrayList<RedBlackTree>();
+		RedBlackTree.getArrayInOrder(root, nodes);
+		return nodes;
+	}
+	private static void getArrayInOrder(RedBlackTree root,
+			ArrayList<RedBlackTree> nodes) {
 
 		if (root.value == null)
 			return;
 
-		RedBlackTree.getArrayInOrder(root.left);
+		RedBlackTree.getArrayInOrder(root.left, nodes);
 
-		temp.add(root);
+		nodes.add(root);
 
-		RedBlackTree.getArrayInOrder(root.right);
+		RedBlackTree.getArrayInOrder(root.right, nodes);
 	}
 
 	// Offset goes to first argument.
@@ -993,6 +1072,7 @@ public class RedBlackTree {
 		this.remove(r2.value);
 
 		r1.value.currentY = r1.value.currentY - offset;
+		r1.value.currentX = Double.NaN;
 		this.add(r1.value);
 
 		this.add(r2.value);
@@ -1009,102 +1089,224 @@ public class RedBlackTree {
 		this.remove(l2);
 
 		l1.currentY = l1.currentY - offset;
+		l1.currentX = Double.NaN;
 		this.add(l1);
 
 		this.add(l2);
 	}
 	
 	
+	/*
+	 * Exchanges the lines held by two nodes. Used when two lines cross: their
+	 * order in the status changes but the shape of the tree does not.
+	 */
+	public void swapValues(RedBlackTree other) {
+		LineInstance tmp = this.value;
+		this.value = other.value;
+		other.value = tmp;
+		this.indexNode();
+		other.indexNode();
+	}
+
+	/*
+	 * Records this node as the holder of its line in the id index. Rotations
+	 * relink nodes without moving values, so only insertion, removal and
+	 * swaps have to call this.
+	 */
+	private void indexNode() {
+		if (index != null && value.lineId < index.length)
+			index[value.lineId] = this;
+	}
+
+	/**
+	 * Replaces the id index by a larger one, so that ids below capacity are
+	 * found in O(1).
+	 *
+	 * @pre this is the root of the tree
+	 * @post every node of the tree, EMPTY leaves included, shares the index
+	 */
+	public void growIndex(int capacity) {
+		RedBlackTree[] grown = new RedBlackTree[capacity];
+		if (index != null)
+			System.arraycopy(index, 0, grown, 0, Math.min(index.length,
+					capacity));
+		setIndex(this, grown);
+	}
+
+	/**
+	 * Builds a tree of the values in the order given, without comparing them
+	 * (e.g. a status restored from a checkpoint, whose ties were broken by
+	 * the events before it). The tree is balanced; only its deepest level is
+	 * red.
+	 *
+	 * @pre this is an empty tree; values are in status order
+	 * @post returns the root of a tree of the values, sharing this index
+	 */
+	public RedBlackTree build(LineInstance[] values) {
+		if (values.length == 0)
+			return this;
+		int redDepth = 31 - Integer.numberOfLeadingZeros(values.length);
+		return build(values, 0, values.length, 0, redDepth, index);
+	}
+
+	// Splitting at the middle leaves every empty child at depth redDepth or
+	// one below, so the black height is redDepth throughout.
+	private static RedBlackTree build(LineInstance[] values, int from, int to,
+			int depth, int redDepth, RedBlackTree[] index) {
+		int middle = (from + to) >>> 1;
+		RedBlackTree node = new RedBlackTree(values[middle], index);
+		node.isRed = depth > 0 && depth == redDepth;
+		node.size = to - from;
+		if (from < middle)
+			node.setLeft(build(values, from, middle, depth + 1, redDepth, index));
+		if (middle + 1 < to)
+			node.setRight(build(values, middle + 1, to, depth + 1, redDepth,
+					index));
+		return node;
+	}
+
+	private static void setIndex(RedBlackTree node, RedBlackTree[] index) {
+		node.index = index;
+		if (!node.isEmpty()) {
+			setIndex(node.left, index);
+			setIndex(node.right, index);
+		}
+	}
+	
 	/* Removes a line with a specific id. */
-	public static RedBlackTree tempNodeWithId;
-	public static void removeIDRecur(int lineId, RedBlackTree root) {
-		if (root.value == null)
-			return;
-					
-		RedBlackTree.removeIDRecur(lineId, root.left);
-		
-		if (root.value.lineId == lineId)
-			RedBlackTree.tempNodeWithId = root;
-		
-		RedBlackTree.removeIDRecur(lineId, root.right);
+	public static RedBlackTree removeIDRecur(int lineId, RedBlackTree root) {
+		return root.locateByID(lineId);
 	}
 	public RedBlackTree removeByID(int lineId, RedBlackTree root) {
-		RedBlackTree.removeIDRecur(lineId, root);
+		RedBlackTree target = root.locateByID(lineId);
+		if (target == null)
+			return this.root();
 		
-		this.remove(RedBlackTree.tempNodeWithId.value);
-		return this.root();
+		return target.removeNode();
+	}
+	
+	/*
+	 * Finds the node holding the line with a specific id, or null. Indexed ids
+	 * are found in O(1); others need a traversal.
+	 */
+	public RedBlackTree locateByID(int lineId) {
+		if (index != null && lineId < index.length)
+			return index[lineId];
+		if (isEmpty())
+			return null;
+		if (value.lineId == lineId)
+			return this;
+		
+		RedBlackTree found = left.locateByID(lineId);
+		if (found != null)
+			return found;
+		return right.locateByID(lineId);
 	}
 	
 
 	
 	/* Counts the nodes of the tree rooted at argument passed. */
-	public static int size;
-	public static void countTreeRec(RedBlackTree root) {
+	public static int countTreeRec(RedBlackTree root) {
 		if (root.value == null)
-			return;
+			return 0;
 					
-		RedBlackTree.countTreeRec(root.left);
-		
-		RedBlackTree.size ++;
-		
-		RedBlackTree.countTreeRec(root.right);
+		return RedBlackTree.countTreeRec(root.left) + 1
+				+ RedBlackTree.countTreeRec(root.right);
 	}
 	public int countTree(RedBlackTree root) {
-		RedBlackTree.size = 0;
-		
-		RedBlackTree.countTreeRec(root);
-		
-		return RedBlackTree.size;
+		return root.size;
 	}
 	
+	/**
+	 * Finds the node at a position of the tree, counted from 0 in order:
+	 * e.g. the k-th line from the bottom of the status.
+	 * 
+	 * @pre this is the root; 0 <= rank < size
+	 * @post returns the node with rank nodes before it
+	 */
+	public RedBlackTree select(int rank) {
+		RedBlackTree node = this;
+		while (rank != node.left.size) {
+			if (rank < node.left.size)
+				node = node.left;
+			else {
+				rank -= node.left.size + 1;
+				node = node.right;
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * The position of this node in its tree, counted from 0 in order: e.g.
+	 * how many lines of the status lie below this one.
+	 * 
+	 * @pre this node is not EMPTY
+	 * @post returns the number of nodes before this one
+	 */
+	public int rank() {
+		int rank = left.size;
+		for (RedBlackTree node = this; node.parent != null; node = node.parent)
+			if (node == node.parent.right)
+				rank += node.parent.left.size + 1;
+		return rank;
+	}
+
 	/* Fill array with line IDs sorted.*/
-	public static ArrayList<Integer> lineIDs;
-	public static void fillIDsRec(RedBlackTree root) {
+	public static void fillIDsRec(RedBlackTree root, ArrayList<Integer> lineIDs) {
 		if (root.value == null)
 			return;
 					
-		RedBlackTree.fillIDsRec(root.left);
+		RedBlackTree.fillIDsRec(root.left, lineIDs);
 		
-		RedBlackTree.lineIDs.add(root.value.lineId);
+		lineIDs.add(root.value.lineId);
 		
-		RedBlackTree.fillIDsRec(root.right);
+		RedBlackTree.fillIDsRec(root.right, lineIDs);
 	}
 	public static ArrayList<Integer> fillIDs(RedBlackTree root) {
-		RedBlackTree.lineIDs = new ArrayList<Integer>();
+		ArrayList<Integer> lineIDs = new ArrayList<Integer>();
 		
-		RedBlackTree.fillIDsRec(root);
+		RedBlackTree.fillIDsRec(root, lineIDs);
 		
-		return RedBlackTree.lineIDs;
+		return lineIDs;
+	}
+	/* Fill an array from position next, without boxing; returns the end. */
+	public static int fillIDs(RedBlackTree root, int[] lineIDs, int next) {
+		if (root.value == null)
+			return next;
+		next = RedBlackTree.fillIDs(root.left, lineIDs, next);
+		lineIDs[next] = root.value.lineId;
+		return RedBlackTree.fillIDs(root.right, lineIDs, next + 1);
 	}
 	
 	
 	/* Refresh keys*/
-	public static ArrayList<LineInstance> linesToReInsert = new ArrayList<LineInstance>();
-	public static RedBlackTree backupRoot;
-	public static void refreshKeysRec(RedBlackTree root) {
+	public static void refreshKeysRec(RedBlackTree root,
+			ArrayList<LineInstance> linesToReInsert) {
 		if (root.value == null)
 			return;
 					
-		RedBlackTree.refreshKeysRec(root.left);
+		RedBlackTree.refreshKeysRec(root.left, linesToReInsert);
 		
-		RedBlackTree.linesToReInsert.add(root.value);
+		linesToReInsert.add(root.value);
 		
-		RedBlackTree.refreshKeysRec(root.right);
+		RedBlackTree.refreshKeysRec(root.right, linesToReInsert);
 	}
 	
 	public RedBlackTree refreshKeys(RedBlackTree root, Double currentX) {
 		RedBlackTree ret = new RedBlackTree();
+		ret.index = root.index;
 		
-		RedBlackTree.linesToReInsert = new ArrayList<LineInstance>();
+		ArrayList<LineInstance> linesToReInsert = new ArrayList<LineInstance>();
 		
-		RedBlackTree.refreshKeysRec(root);
+		RedBlackTree.refreshKeysRec(root, linesToReInsert);
 		
 		
 		// Remove all lines from the tree.
-		for (LineInstance li : RedBlackTree.linesToReInsert) {
+		for (LineInstance li : linesToReInsert) {
 			root = root.root().remove(li);
 			
-			li.currentY = li.getY(currentX);
+			li.yAt(currentX);
 		
 			ret = ret.add(li);
 		}
@@ -1,92 +1,92 @@
 package utilities;
 
-import math.geom2d.Point2D;
-import math.geom2d.conic.Parabola2D;
-import math.geom2d.line.LineSegment2D;
 import basic_geometric_entities.Line;
+import basic_geometric_entities.LineStore;
 import basic_geometric_entities.Point;
 
 public final class IntersectionChecker {
-	public static Pair areIntersectingAt(Line l1, Line l2) {
-
-		if (l1.a == 0 & l2.a == 0) { // Straight lines.
-
-			LineSegment2D line1 = new LineSegment2D(new Point2D(
-					l1.getStartPoint().x, l1.getStartPoint().y), new Point2D(
-					l1.getEndPoint().x, l1.getEndPoint().y));
-
-			LineSegment2D line2 = new LineSegment2D(new Point2D(
-					l1.getStartPoint().x, l1.getStartPoint().y), new Point2D(
-					l1.getEndPoint().x, l1.getEndPoint().y));
-
-			Point intersectionPoint = new Point(line1.intersection(line2)
-					.getX(), line1.intersection(line2).getY());
-
-			if (l1.isInRange(intersectionPoint.x)
-					&& l2.isInRange(intersectionPoint.x))
-				return new Pair(new Point(line1.intersection(line2).getX(),
-						line1.intersection(line2).getY()), null);
-
-			else
-				return null;
-
-		} else if (l1.a != 0 && l2.a != 0) { // Quadratic lines.
-
-			Double a = l1.a - l2.a, b = l1.b - l2.b, c = l1.c - l2.c;
-
-			Double discriminant = b - 4 * a * c;
-
-			if (discriminant > 0) { // Two intersections.
-				
-				Point p1 = new Point(-b + Math.sqrt(discriminant) / (2 * a),
-						l1.getY(-b + Math.sqrt(discriminant) / (2 * a)));
-
-				Point p2 = new Point(-b - Math.sqrt(discriminant) / (2 * a),
-						l1.getY(-b - Math.sqrt(discriminant) / (2 * a)));
+	/**
+	 * Writes into xs, in increasing order, the x-coordinates at which two
+	 * lines of a store meet within both their ranges, and returns how many
+	 * there are (0, 1 or 2). Nothing is allocated.
+	 */
+	public static int intersections(LineStore store, int id1, int id2,
+			double[] xs) {
+		// Solve for a pair in a fixed order, so that the same pair always
+		// yields the same x-coordinates and hence the same event keys.
+		if (id1 > id2) {
+			int tmp = id1;
+			id1 = id2;
+			id2 = tmp;
+		}
 
-				if (l1.isInRange(p1.x) && l2.isInRange(p1.x))
-					return new Pair(p1, p2);
-				else
-					return null;
+		// Both lines are polynomials in x: they meet where their difference
+		// a*x^2 + b*x + c vanishes.
+		return solve(store.a[id1] - store.a[id2], store.b[id1] - store.b[id2],
+				store.c[id1] - store.c[id2],
+				Math.max(store.t1[id1], store.t1[id2]),
+				Math.min(store.t2[id1], store.t2[id2]), xs);
+	}
 
-			} else if (discriminant == 0) { // One intersection.
-				Point p = new Point(-b / (2 * a), l1.getY(-b / (2 * a)));
-				if (l1.isInRange(p.x) && l2.isInRange(p.x))
-					return new Pair(p, null);
-				else
-					return null;
-			} else
-				return null; // No intersection.
+	/**
+	 * Same as above, for two lines given by their coefficients.
+	 */
+	public static int intersections(Line l1, Line l2, double[] xs) {
+		if (l1.lineId > l2.lineId) {
+			Line tmp = l1;
+			l1 = l2;
+			l2 = tmp;
+		}
 
-		} else { // Both straight and quadratic.
-			Line straight = (l1.a == 0) ? l1 : l2;
-			Line quadratic = (l1.a == 0) ? l2 : l1;
+		return solve(l1.a - l2.a, l1.b - l2.b, l1.c - l2.c,
+				Math.max(l1.t1, l2.t1), Math.min(l1.t2, l2.t2), xs);
+	}
 
-			LineSegment2D line = new LineSegment2D(new Point2D(
-					straight.getStartPoint().x, straight.getStartPoint().y),
-					new Point2D(straight.getEndPoint().x, straight
-							.getEndPoint().y));
+	/**
+	 * Returns the intersection points of two lines (point2 is null if they
+	 * meet once), or null if they do not meet within both their ranges.
+	 */
+	public static Pair areIntersectingAt(Line l1, Line l2) {
+		double[] xs = new double[2];
+		int found = intersections(l1, l2, xs);
+		if (found == 0)
+			return null;
+
+		Point p1 = new Point(xs[0], l1.getY(xs[0]));
+		Point p2 = (found == 2) ? new Point(xs[1], l1.getY(xs[1])) : null;
+		return new Pair(p1, p2);
+	}
 
-			Point2D vertex = new Point2D(-quadratic.b / (2 * quadratic.a),
-					quadratic.getY(-quadratic.b / (2 * quadratic.a)));
+	/*
+	 * Roots of a*x^2 + b*x + c within [from, to], in increasing order. The
+	 * larger root in magnitude is computed first and the other one from
+	 * their product c/a, so that b*b close to the discriminant does not
+	 * cancel out the smaller root.
+	 */
+	private static int solve(double a, double b, double c, double from,
+			double to, double[] xs) {
+		if (a == 0) { // Linear difference.
+			if (b == 0)
+				return 0; // Parallel or overlapping.
+			return addRoot(-c / b, from, to, xs, 0);
+		}
 
-			Point2D focus = new Point2D(
-					-(quadratic.b / (2 * quadratic.a)),
-					(1 - (quadratic.b * quadratic.b) + (4 * quadratic.a * quadratic.c))
-							/ (4 * quadratic.a));
+		double discriminant = b * b - 4 * a * c;
+		if (discriminant < 0)
+			return 0;
+		if (discriminant == 0)
+			return addRoot(-b / (2 * a), from, to, xs, 0);
 
-			Parabola2D parabola = Parabola2D.create(vertex, focus);
-			
-			Point p = new Point(parabola.intersections(line).iterator()
-					.next().getX(), parabola.intersections(line).iterator()
-					.next().getY());
-			
-			if (l1.isInRange(p.x) && l2.isInRange(p.x))
-				return new Pair(p, null);
-			else
-				return null;
-		}
+		double q = -0.5 * (b + Math.copySign(Math.sqrt(discriminant), b));
+		double x1 = q / a, x2 = c / q;
+		int found = addRoot(Math.min(x1, x2), from, to, xs, 0);
+		return addRoot(Math.max(x1, x2), from, to, xs, found);
+	}
 
+	private static int addRoot(double x, double from, double to, double[] xs,
+			int found) {
+		if (x >= from && x <= to)
+			xs[found++] = x;
+		return found;
 	}
 }
-	
\ No newline at end of file
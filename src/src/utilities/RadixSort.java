@@ -0,0 +1,70 @@
+package utilities;
+
+import java.util.Arrays;
+
+/**
+ * Stable sort of int values by long keys compared as unsigned, in linear
+ * time. Doubles are sorted through key(x).
+ */
+public final class RadixSort {
+
+	/**
+	 * A key ordering as Double.compare orders x: negative numbers reversed,
+	 * positive ones above them.
+	 */
+	public static long key(double x) {
+		long bits = Double.doubleToLongBits(x);
+		return bits ^ (bits >> 63 | Long.MIN_VALUE);
+	}
+
+	public static double valueOf(long key) {
+		return Double.longBitsToDouble((key < 0) ? key ^ Long.MIN_VALUE : ~key);
+	}
+
+	/*
+	 * LSD radix sort of [from, to) by key, 16 bits per pass; passes over
+	 * digits all keys share are skipped, and sorted input is left as it is.
+	 */
+	public static void sort(long[] keys, int[] values, int from, int to) {
+		long all = ~0L, any = 0;
+		boolean sorted = true;
+		for (int i = from; i < to; i++) {
+			all &= keys[i];
+			any |= keys[i];
+			if (i > from && Long.compareUnsigned(keys[i - 1], keys[i]) > 0)
+				sorted = false;
+		}
+		if (sorted)
+			return;
+
+		int n = to - from;
+		long[] keysFrom = Arrays.copyOfRange(keys, from, to), keysTo = new long[n];
+		int[] valuesFrom = Arrays.copyOfRange(values, from, to), valuesTo = new int[n];
+		int[] counts = new int[1 << 16];
+		for (int shift = 0; shift < 64; shift += 16) {
+			if ((((all ^ any) >>> shift) & 0xFFFF) == 0)
+				continue;
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < n; i++)
+				counts[(int) (keysFrom[i] >>> shift) & 0xFFFF]++;
+			for (int d = 0, sum = 0; d < counts.length; d++) {
+				int count = counts[d];
+				counts[d] = sum;
+				sum += count;
+			}
+			for (int i = 0; i < n; i++) {
+				int j = counts[(int) (keysFrom[i] >>> shift) & 0xFFFF]++;
+				keysTo[j] = keysFrom[i];
+				valuesTo[j] = valuesFrom[i];
+			}
+			long[] keysSwap = keysFrom;
+			keysFrom = keysTo;
+			keysTo = keysSwap;
+			int[] valuesSwap = valuesFrom;
+			valuesFrom = valuesTo;
+			valuesTo = valuesSwap;
+		}
+		System.arraycopy(keysFrom, 0, keys, from, n);
+		System.arraycopy(valuesFrom, 0, values, from, n);
+	}
+}
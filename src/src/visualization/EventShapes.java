@@ -0,0 +1,56 @@
+package visualization;
+
+import java.util.ArrayList;
+
+import math.geom2d.Point2D;
+import math.geom2d.line.Line2D;
+import basic_geometric_entities.LineStore;
+import eventhandler.RenderListener;
+import events.Event;
+
+/**
+ * Shapes to draw for the last handled event: the sweep line, the event point
+ * and the intersection events it scheduled.
+ */
+public class EventShapes implements RenderListener {
+
+	// The last handled event.
+	public Event event;
+	// The lines of the events.
+	LineStore store;
+
+	public Line2D sweepLine;
+	public Point2D eventPoint;
+	public ArrayList<Point2D> pointsToDraw = new ArrayList<Point2D>();
+	public ArrayList<Point2D> hotPointsToDraw = new ArrayList<Point2D>();
+
+	public EventShapes(LineStore store, Event first) {
+		this.store = store;
+		this.event = first;
+		this.sweepLine = getSweepLine2D(first.x);
+	}
+
+	public void eventStarted(Event event) {
+		this.emptyLists();
+		this.event = event;
+		this.sweepLine = getSweepLine2D(event.x);
+		this.eventPoint = getPoint2D(this.store, event);
+	}
+
+	public void eventScheduled(Event event, Event scheduled) {
+		this.hotPointsToDraw.add(getPoint2D(this.store, scheduled));
+	}
+
+	public void emptyLists() {
+		this.pointsToDraw.clear();
+		this.hotPointsToDraw.clear();
+	}
+
+	// For graphics.
+	public static Line2D getSweepLine2D(double x) {
+		return new Line2D(x + 150, 0, x + 150, 1175);
+	}
+	public static Point2D getPoint2D(LineStore store, Event e) {
+		return new Point2D((e.x + 150), (-store.getY(e.lineId, e.x) + 175));
+	}
+}
@@ -1,6 +1,19 @@
 package visualization;
 
+import input.BinaryInput;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import eventhandler.BatchExecutor;
+import eventhandler.Checkpoint;
 import eventhandler.Executor;
+import eventhandler.ExternalSweep;
+import output.BinarySink;
+import output.ChannelSink;
 
 public class Main {
 
@@ -9,16 +22,65 @@ public class Main {
 	public Main() {
 	}
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws InterruptedException,
+			IOException {
 		Main main = new Main();
 
 		if (args.length > 0) {
-			for (int i = 0; i < args.length; i++)
-				System.out.println(args[i]);
 			if (args[0].equals("-display")) { // Displaying, not for tests.
+				for (int i = 0; i < args.length; i++)
+					System.out.println(args[i]);
 				main.viz = new Vizualizer();
 				main.viz.init();			
 			}		
+			else if (args[0].equals("-parallel")) { // Threads for RUN.
+				Executor executor = new Executor("input.txt");
+				executor.parallelism = (args.length > 1) ? Integer
+						.parseInt(args[1]) : Runtime.getRuntime()
+						.availableProcessors();
+				executor.executeCommands();
+			}
+			else if (args[0].equals("-batch")) { // Threads, then input files.
+				new BatchExecutor(Integer.parseInt(args[1])).run(
+						Arrays.asList(args).subList(2, args.length),
+						System.out);
+			}
+			else if (args[0].equals("-output")) { // Text output to a file.
+				FileChannel channel = new FileOutputStream(args[1]).getChannel();
+				Executor executor = new Executor("input.txt");
+				executor.plane.outputSink = new ChannelSink(channel);
+				executor.executeCommands();
+				channel.close();
+			}
+			else if (args[0].equals("-records")) { // Binary output to a file.
+				FileOutputStream out = new FileOutputStream(args[1]);
+				Executor executor = new Executor("input.txt");
+				executor.plane.outputSink = new BinarySink(out);
+				executor.executeCommands();
+				out.close();
+			}
+			else if (args[0].equals("-external")) { // Input, then results file.
+				String input = args[1];
+				if (!BinaryInput.isBinary(input)) {
+					File binary = File.createTempFile("input", ".bin");
+					binary.deleteOnExit();
+					BinaryInput.convert(input, binary.getPath());
+					input = binary.getPath();
+				}
+				System.out.println(new ExternalSweep().run(input,
+						(args.length > 2) ? args[2] : null));
+			}
+			else if (args[0].equals("-checkpoint")) { // File, then events apart.
+				// Resumes from the checkpoint if there is one.
+				File checkpoint = new File(args[1]);
+				Executor executor = checkpoint.exists() ? Checkpoint
+						.restore(args[1]) : new Executor("input.txt");
+				executor.checkpointFile = args[1];
+				if (args.length > 2)
+					executor.checkpointInterval = Integer.parseInt(args[2]);
+				executor.executeCommands();
+				checkpoint.delete();
+			}
 		}
 		else { // Print what the tests anticipate.
 			Executor executor = new Executor("input.txt");
@@ -19,7 +19,6 @@ import math.geom2d.conic.Parabola2D;
 import math.geom2d.line.Line2D;
 import red_black_tree.RedBlackTree;
 import basic_geometric_entities.Line;
-import basic_geometric_entities.LineInstance;
 import basic_geometric_entities.Point;
 import eventhandler.Executor;
 import events.Event;
@@ -30,7 +29,9 @@ public class Vizualizer extends Applet implements ActionListener {
 
 	public Executor executor;
 
-	public Event shapeHolder;
+	// Shapes of the last handled event (null after a command without one).
+	public EventShapes shapeHolder;
+	public EventShapes shapes;
 
 	public ArrayList<Point> reportedIntersections;
 	public Point2D eventPoint;
@@ -58,7 +59,10 @@ public class Vizualizer extends Applet implements ActionListener {
 	public void init() {
 		
 		this.executor = new Executor("input.txt");
-		this.shapeHolder = new Event(this.executor.plane.events.element());
+		this.shapes = new EventShapes(this.executor.plane.lineStore,
+				this.executor.plane.events.element());
+		this.executor.plane.renderListener = this.shapes;
+		this.shapeHolder = this.shapes;
 
 		reportedIntersections = new ArrayList<Point>();
 		hotPoints = new ArrayList<Point2D>();
@@ -98,7 +102,8 @@ public class Vizualizer extends Applet implements ActionListener {
 		parabolas.clear();
 
 		// Get shapes to draw after executing command.
-		this.shapeHolder = this.executor.executeOneCommand();
+		Event handled = this.executor.executeOneCommand();
+		this.shapeHolder = (handled != null) ? this.shapes : null;
 
 		if (this.shapeHolder != null) {
 			this.sweepLine = this.shapeHolder.sweepLine;
@@ -106,8 +111,9 @@ public class Vizualizer extends Applet implements ActionListener {
 		}
 
 		if (this.shapeHolder != null) {
-			if (this.shapeHolder.type == EventType.INTERSECTION)
-				this.reportedIntersections.add(this.shapeHolder.getPoint());
+			if (handled.type == EventType.INTERSECTION)
+				this.reportedIntersections.add(handled
+						.getPoint(this.executor.plane.lineStore));
 		}
 
 		repaint();
@@ -172,9 +178,9 @@ public class Vizualizer extends Applet implements ActionListener {
 				this.hotPoints.add(p);
 			}
 
-			RedBlackTree.getArrayInOrder(this.executor.plane.rootNode.root());
-			for (RedBlackTree rb : RedBlackTree.temp) {
-				LineInstance toDraw = rb.value;
+			for (RedBlackTree rb : RedBlackTree
+					.getArrayInOrder(this.executor.plane.rootNode.root())) {
+				Line toDraw = rb.value.getLine();
 				if (toDraw.a == 0) {
 					this.lines.add(toDraw.getLine2D());
 				} else {
@@ -193,7 +199,7 @@ public class Vizualizer extends Applet implements ActionListener {
 				this.sweepLine.draw(g2);
 
 			if (this.eventPoint != null) {
-				switch (this.shapeHolder.type) {
+				switch (this.shapeHolder.event.type) {
 				case START:
 					g2.setColor(Color.GREEN);
 					break;
@@ -0,0 +1,99 @@
+package eventHandling;
+
+import static org.junit.Assert.assertTrue;
+import input.BinaryInput;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Test;
+
+import plane.Plane;
+import basic_geometric_entities.Line;
+import eventhandler.EventHandler;
+import events.Event;
+import events.EventQueue;
+import events.EventType;
+
+public class AllocationTest {
+
+	static final int LINES = 300;
+
+	@Test
+	public void intersectionAndEndEventsAllocateOnlyNewEvents()
+			throws IOException {
+		String text = writeInput();
+		File binary = File.createTempFile("allocation", ".bin");
+		binary.deleteOnExit();
+		BinaryInput.convert(text, binary.getPath());
+
+		// A binary input has no line objects to hand to its events.
+		for (String input : new String[] { text, binary.getPath() }) {
+			// Warm up class loading and the JIT on an identical sweep.
+			for (int i = 0; i < 3; i++)
+				sweep(new Plane(input));
+
+			Plane plane = new Plane(input);
+			// All lines start at the same x; the steady state follows.
+			while (plane.events.element().type == EventType.START)
+				EventHandler.handleEvent(plane, plane.events.remove(), false);
+
+			long handled = 0, enqueued = 0;
+			long before = allocatedBytes();
+			while (!plane.events.isEmpty()) {
+				int size = plane.events.size();
+				EventHandler.handleEvent(plane, plane.events.remove(), false);
+				enqueued += plane.events.size() - size + 1;
+				handled++;
+			}
+			long allocated = allocatedBytes() - before;
+
+			long perEvent = eventCost();
+			System.out.println("handled " + handled + " events, enqueued "
+					+ enqueued + ", allocated " + allocated + " bytes ("
+					+ perEvent + " per enqueued event)");
+			assertTrue(allocated <= enqueued * perEvent + 64 * 1024);
+		}
+	}
+
+	// Bytes allocated by creating and enqueueing one intersection event.
+	static long eventCost() {
+		Line l0 = new Line(0, 0, 1, 0, -1, 1), l1 = new Line(1, 0, -1, 0, -1, 1);
+		EventQueue queue = new EventQueue(new Event());
+		int n = 10000;
+		long before = allocatedBytes();
+		for (int i = 0; i < n; i++)
+			queue.add(new Event(i, EventType.INTERSECTION, l0, l1));
+		return (allocatedBytes() - before) / n + 1;
+	}
+
+	static void sweep(Plane plane) {
+		while (!plane.events.isEmpty())
+			EventHandler.handleEvent(plane, plane.events.remove(), false);
+	}
+
+	static long allocatedBytes() {
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	static String writeInput() throws IOException {
+		File file = File.createTempFile("allocation", ".txt");
+		file.deleteOnExit();
+		Random random = new Random(7);
+		PrintWriter out = new PrintWriter(file);
+		out.println(LINES);
+		for (int i = 0; i < LINES; i++) {
+			double a = (i % 2 == 0) ? 0 : random.nextDouble() * 0.2 - 0.1;
+			out.println(a + " " + (random.nextDouble() * 4 - 2) + " "
+					+ (random.nextDouble() * 20 - 10) + " -10 "
+					+ (5 + random.nextDouble() * 5));
+		}
+		out.close();
+		return file.getPath();
+	}
+}
@@ -0,0 +1,50 @@
+package eventHandling;
+
+import static org.junit.Assert.assertEquals;
+import input.InputGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import eventhandler.BatchExecutor;
+import eventhandler.Executor;
+
+public class BatchExecutorTest {
+
+	@Test
+	public void outputInFileOrder() throws IOException, InterruptedException {
+		ArrayList<String> files = new ArrayList<String>();
+		for (int i = 0; i < 12; i++) {
+			File file = File.createTempFile("batch", ".txt");
+			file.deleteOnExit();
+			InputGenerator generator = new InputGenerator(50 + 40 * i, i);
+			generator.k = 200 * i;
+			InputGenerator.write(file.getPath(), generator.generate(),
+					new String[] { "step -p", "status", "step -p", "run",
+							"status" });
+			files.add(file.getPath());
+		}
+		files.add("input.txt");
+
+		// The same files one after the other.
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(expected);
+		for (String file : files) {
+			Executor executor = new Executor(file);
+			executor.plane.out = out;
+			executor.executeCommands();
+		}
+		out.flush();
+
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		new BatchExecutor(4).run(files, new PrintStream(actual));
+
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+}
@@ -0,0 +1,186 @@
+package eventHandling;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import input.InputGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import red_black_tree.ArrayRedBlackTree;
+import eventhandler.Checkpoint;
+import eventhandler.EventHandler;
+import eventhandler.Executor;
+
+public class CheckpointTest {
+
+	@Test
+	public void resumesAsIfUninterrupted() throws IOException {
+		String input = input(1500, 3);
+		for (boolean arrays : new boolean[] { false, true }) {
+			for (boolean bounded : new boolean[] { false, true }) {
+				Executor whole = executor(input, bounded, arrays);
+				String expected = output(whole);
+
+				// Stop a third of the way into the events and go on from a
+				// copy.
+				Executor stopped = executor(input, bounded, arrays);
+				for (int i = stopped.plane.events.size() / 3; i > 0; i--)
+					EventHandler.handleEvent(stopped.plane,
+							stopped.plane.events.remove(), false);
+				int[] status = stopped.plane.statusIDs();
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				Checkpoint.write(stopped, Channels.newChannel(bytes));
+
+				Executor resumed = Checkpoint.read(Channels
+						.newChannel(new ByteArrayInputStream(bytes
+								.toByteArray())));
+				assertTrue(resumed.plane.boundedEvents == bounded);
+				assertTrue((resumed.plane.arrayStatus != null) == arrays);
+				if (arrays) {
+					ArrayRedBlackTree tree = resumed.plane.arrayStatus;
+					assertTrue(tree.blackHeight(tree.root) >= 0);
+					for (int rank = 0; rank < status.length; rank++)
+						assertEquals(status[rank],
+								tree.lineId[tree.select(rank)]);
+				} else
+					assertTrue(resumed.plane.rootNode.root().consistency());
+				assertArrayEquals(status, resumed.plane.statusIDs());
+				assertEquals(stopped.plane.events.size(),
+						resumed.plane.events.size());
+				assertEquals(expected, output(resumed));
+				assertEquals(whole.plane.intersectionNo,
+						resumed.plane.intersectionNo);
+			}
+		}
+	}
+
+	@Test
+	public void refusesAChangedInput() throws IOException {
+		String input = input(200, 5);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Checkpoint.write(new Executor(input), Channels.newChannel(bytes));
+
+		// Appending a command changes the size of the input.
+		FileWriter writer = new FileWriter(input, true);
+		writer.write("status\n");
+		writer.close();
+		try {
+			Checkpoint.read(Channels.newChannel(new ByteArrayInputStream(bytes
+					.toByteArray())));
+			fail("resumed over a changed input");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().startsWith("input changed"));
+		}
+
+		new File(input).delete();
+		try {
+			Checkpoint.read(Channels.newChannel(new ByteArrayInputStream(bytes
+					.toByteArray())));
+			fail("resumed without an input");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().startsWith("input of the checkpoint"));
+		}
+	}
+
+	@Test
+	public void periodicCheckpoints() throws IOException {
+		String input = input(1000, 11);
+		Executor whole = new Executor(input);
+		String expected = output(whole);
+
+		File file = File.createTempFile("sweep", ".ckp");
+		file.deleteOnExit();
+		Executor checkpointed = new Executor(input);
+		checkpointed.checkpointFile = file.getPath();
+		checkpointed.checkpointInterval = 997;
+		// Checkpoints are taken by a sequential RUN, whatever the threads.
+		checkpointed.parallelism = 4;
+		assertEquals(expected, output(checkpointed));
+
+		// The last checkpoint was taken during the RUN, which goes on.
+		Executor resumed = Checkpoint.restore(file.getPath());
+		assertEquals(0, resumed.nextCommand);
+		assertTrue(resumed.plane.intersectionNo > 0);
+		assertEquals(expected, output(resumed));
+	}
+
+	@Test
+	public void refusesACorruptCheckpoint() throws IOException {
+		String input = input(300, 7);
+		Executor stopped = new Executor(input);
+		for (int i = stopped.plane.events.size() / 3; i > 0; i--)
+			EventHandler.handleEvent(stopped.plane,
+					stopped.plane.events.remove(), false);
+		assertTrue(stopped.plane.statusSize() > 0);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Checkpoint.write(stopped, Channels.newChannel(bytes));
+		byte[] saved = bytes.toByteArray();
+		ByteBuffer fields = ByteBuffer.wrap(saved).order(
+				ByteOrder.LITTLE_ENDIAN);
+		int statusAt = 46 + fields.getInt(8);
+
+		// Path length, status count (negative and too large), last event
+		// type, first status id.
+		int[][] corruptions = { { 8, -1 }, { 8, Integer.MAX_VALUE },
+				{ statusAt, -5 }, { statusAt, 301 },
+				{ statusAt + 4, 300 } };
+		for (int[] corruption : corruptions) {
+			byte[] corrupt = saved.clone();
+			ByteBuffer.wrap(corrupt).order(ByteOrder.LITTLE_ENDIAN).putInt(
+					corruption[0], corruption[1]);
+			assertRefused(corrupt);
+		}
+		byte[] corrupt = saved.clone();
+		corrupt[corrupt.length - 9] = 99;
+		assertRefused(corrupt);
+		assertRefused(Arrays.copyOf(saved, saved.length - 1));
+	}
+
+	static void assertRefused(byte[] checkpoint) {
+		try {
+			Checkpoint.read(Channels.newChannel(new ByteArrayInputStream(
+					checkpoint)));
+			fail("read a corrupt checkpoint");
+		} catch (IOException e) {
+			// Refused as expected.
+		}
+	}
+
+	static String input(int n, long seed) throws IOException {
+		File file = File.createTempFile("checkpoint", ".txt");
+		file.deleteOnExit();
+		InputGenerator generator = new InputGenerator(n, seed);
+		generator.k = 4 * n;
+		InputGenerator.write(file.getPath(), generator.generate(),
+				new String[] { "run" });
+		return file.getPath();
+	}
+
+	static Executor executor(String input, boolean bounded, boolean arrays) {
+		Executor executor = new Executor(input);
+		executor.plane.boundedEvents = bounded;
+		if (arrays)
+			executor.plane.useArrayStatus();
+		return executor;
+	}
+
+	static String output(Executor executor) {
+		ByteArrayOutputStream text = new ByteArrayOutputStream();
+		executor.plane.out = new PrintStream(text);
+		executor.executeCommands();
+		return text.toString();
+	}
+}
@@ -1,8 +1,23 @@
 package eventHandling;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import input.InputGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
 import org.junit.Test;
 
+import plane.Plane;
+import eventhandler.EventHandler;
 import eventhandler.Executor;
+import eventhandler.ParallelSweep;
+import eventhandler.StatusHistory;
 
 public class ExecutionTest {
 
@@ -12,4 +27,176 @@ public class ExecutionTest {
 		executor.executeCommands();
 	}
 
+	@Test
+	public void boundedEvents() throws IOException {
+		File file = File.createTempFile("dense", ".txt");
+		file.deleteOnExit();
+		int n = 2000;
+		InputGenerator generator = new InputGenerator(n, 17);
+		generator.k = 2000L * n;
+		InputGenerator.write(file.getPath(), generator.generate(),
+				new String[] { "run" });
+
+		for (String input : new String[] { "input.txt", file.getPath() }) {
+			Executor unbounded = new Executor(input);
+			Executor bounded = new Executor(input);
+			bounded.plane.boundedEvents = true;
+
+			int unboundedMax = sweep(unbounded);
+			int boundedMax = sweep(bounded);
+			assertEquals(unbounded.plane.intersectionNo,
+					bounded.plane.intersectionNo);
+
+			// At most two pending intersections per pair of neighbours.
+			int lines = bounded.plane.lines.size();
+			assertTrue(boundedMax <= 2 * lines);
+			if (input.equals(file.getPath()))
+				assertTrue(unboundedMax > 2 * lines);
+		}
+	}
+
+	// Handles every event; returns the most intersections ever queued.
+	static int sweep(Executor executor) {
+		int max = 0;
+		while (!executor.plane.events.isEmpty()) {
+			EventHandler.handleEvent(executor.plane,
+					executor.plane.events.remove(), false);
+			max = Math.max(max, executor.plane.events.queue.size());
+		}
+		return max;
+	}
+
+	@Test
+	public void rootAtCommonStart() throws IOException {
+		// Both curves start at the same point and part there; their common
+		// root rounds just past it and is no crossing.
+		File file = File.createTempFile("commonStart", ".txt");
+		file.deleteOnExit();
+		PrintWriter out = new PrintWriter(file);
+		out.println(2);
+		out.println("-0.006469443699317928 -1.5001662198127486E-4 "
+				+ "-6.285760175162851 14.608605934868544 24.920717558699756");
+		out.println("0.0 0.4162469512617625 -13.749392217382342 "
+				+ "14.608605934868544 43.20799299070444");
+		out.close();
+
+		Plane plane = new Plane(file.getPath());
+		while (!plane.events.isEmpty())
+			EventHandler.handleEvent(plane, plane.events.remove(), false);
+		assertEquals(0, plane.intersectionNo);
+	}
+
+	@Test
+	public void parallelRun() throws IOException {
+		File file = File.createTempFile("parallel", ".txt");
+		file.deleteOnExit();
+		InputGenerator generator = new InputGenerator(2000, 5);
+		generator.k = 20000;
+		generator.degeneracy = 0.2;
+		InputGenerator.write(file.getPath(), generator.generate(),
+				new String[] { "run" });
+
+		for (String input : new String[] { "input.txt", file.getPath() }) {
+			Executor sequential = new Executor(input);
+			while (!sequential.plane.events.isEmpty())
+				EventHandler.handleEvent(sequential.plane,
+						sequential.plane.events.remove(), false);
+
+			for (int threads = 2; threads <= 8; threads *= 2)
+				assertEquals(sequential.plane.intersectionNo,
+						ParallelSweep.run(new Executor(input).plane, threads));
+		}
+	}
+
+	@Test
+	public void parallelRunTwice() throws IOException {
+		File file = File.createTempFile("twice", ".txt");
+		file.deleteOnExit();
+		InputGenerator generator = new InputGenerator(500, 3);
+		generator.k = 2000;
+		InputGenerator.write(file.getPath(), generator.generate(),
+				new String[] { "run", "run" });
+
+		String expected = null;
+		for (int threads = 1; threads <= 4; threads *= 2) {
+			Executor executor = new Executor(file.getPath());
+			executor.parallelism = threads;
+			ByteArrayOutputStream text = new ByteArrayOutputStream();
+			executor.plane.out = new PrintStream(text);
+			executor.executeCommands();
+
+			// The second RUN finds the sweep over and reports the same.
+			String[] summaries = text.toString().split("\n");
+			assertEquals(2, summaries.length);
+			assertEquals(summaries[0], summaries[1]);
+			if (expected == null)
+				expected = summaries[0];
+			assertEquals(expected, summaries[0]);
+		}
+	}
+
+	@Test
+	public void arrayStatus() throws IOException {
+		File file = File.createTempFile("arrays", ".txt");
+		file.deleteOnExit();
+		InputGenerator generator = new InputGenerator(1500, 13);
+		generator.k = 10000;
+		generator.degeneracy = 0.2;
+		InputGenerator.write(file.getPath(), generator.generate(),
+				new String[] { "run" });
+
+		for (String input : new String[] { "input.txt", file.getPath() }) {
+			for (boolean bounded : new boolean[] { false, true }) {
+				Executor objects = new Executor(input);
+				Executor arrays = new Executor(input);
+				objects.plane.boundedEvents = bounded;
+				arrays.plane.boundedEvents = bounded;
+				arrays.plane.useArrayStatus();
+				while (!objects.plane.events.isEmpty()) {
+					EventHandler.handleEvent(objects.plane,
+							objects.plane.events.remove(), false);
+					EventHandler.handleEvent(arrays.plane,
+							arrays.plane.events.remove(), false);
+					assertArrayEquals(objects.plane.statusIDs(),
+							arrays.plane.statusIDs());
+				}
+				assertTrue(arrays.plane.events.isEmpty());
+				assertEquals(objects.plane.intersectionNo,
+						arrays.plane.intersectionNo);
+			}
+		}
+	}
+
+	@Test
+	public void tangency() throws IOException {
+		// x^2 touches y = 0 at 0, then crosses y = 2 at sqrt(2).
+		File file = File.createTempFile("tangency", ".txt");
+		file.deleteOnExit();
+		PrintWriter writer = new PrintWriter(file);
+		writer.print("3\n1 0 0 -3 3\n0 0 0 -3 3\n0 0 2 0.5 2.5\nrun\n");
+		writer.close();
+
+		for (boolean arrays : new boolean[] { false, true }) {
+			for (boolean bounded : new boolean[] { false, true }) {
+				Executor executor = new Executor(file.getPath());
+				executor.plane.boundedEvents = bounded;
+				if (arrays)
+					executor.plane.useArrayStatus();
+				for (int i = 0; i < 4; i++)
+					EventHandler.handleEvent(executor.plane,
+							executor.plane.events.remove(), false);
+				assertArrayEquals(new int[] { 1, 0, 2 },
+						executor.plane.statusIDs());
+				while (!executor.plane.events.isEmpty())
+					EventHandler.handleEvent(executor.plane,
+							executor.plane.events.remove(), false);
+				assertEquals(2, executor.plane.intersectionNo);
+			}
+		}
+
+		StatusHistory history = new StatusHistory(new Plane(file.getPath()));
+		history.sweep();
+		assertArrayEquals(new int[] { 1, 0, 2 }, history.statusAt(1));
+		assertArrayEquals(new int[] { 1, 2, 0 }, history.statusAt(2));
+	}
 }
@@ -0,0 +1,78 @@
+package eventHandling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import input.BinaryInput;
+import input.InputGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import org.junit.Test;
+
+import plane.Plane;
+import basic_geometric_entities.LineStore;
+import eventhandler.EventHandler;
+import eventhandler.ExternalSweep;
+
+public class ExternalSweepTest {
+
+	@Test
+	public void sameCountAsInMemory() throws IOException {
+		for (int i = 0; i < 12; i++) {
+			InputGenerator generator = new InputGenerator(100 + 40 * i, i);
+			generator.k = 60 * i;
+			generator.degeneracy = (i % 3 == 0) ? 0.3 : 0;
+			String text = temporary(), binary = temporary(), results = temporary();
+			InputGenerator.write(text, generator.generate(),
+					new String[] { "run" });
+			BinaryInput.convert(text, binary);
+
+			for (boolean bounded : new boolean[] { true, false }) {
+				Plane plane = new Plane(text);
+				plane.boundedEvents = bounded;
+				while (!plane.events.isEmpty())
+					EventHandler.handleEvent(plane, plane.events.remove(), false);
+
+				// Small budgets: many endpoint runs, and frequent spills.
+				ExternalSweep sweep = new ExternalSweep();
+				sweep.memoryBudget = (i % 2 == 0) ? 1000 : 64L << 20;
+				sweep.boundedEvents = bounded;
+				assertEquals(plane.intersectionNo, sweep.run(binary, results));
+				checkResults(new BinaryInput(binary).lineStore, results,
+						plane.intersectionNo);
+			}
+		}
+	}
+
+	// Each record is a point of its first line, within the range of both.
+	static void checkResults(LineStore lines, String results, long count)
+			throws IOException {
+		RandomAccessFile in = new RandomAccessFile(results, "r");
+		try {
+			FileChannel channel = in.getChannel();
+			assertEquals(32 * count, channel.size());
+			ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+			for (long r = 0; r < count; r++) {
+				double x = records.getDouble(), y = records.getDouble();
+				int id1 = (int) records.getLong(), id2 = (int) records.getLong();
+				assertTrue(id1 != id2);
+				assertTrue(lines.isInRange(id1, x) && lines.isInRange(id2, x));
+				assertEquals(y, lines.getY(id1, x), 0);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	static String temporary() throws IOException {
+		File file = File.createTempFile("external", ".bin");
+		file.deleteOnExit();
+		return file.getPath();
+	}
+}
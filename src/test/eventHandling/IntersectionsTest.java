@@ -0,0 +1,88 @@
+package eventHandling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import input.InputGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+import plane.Plane;
+import basic_geometric_entities.Intersection;
+import eventhandler.EventHandler;
+import eventhandler.IntersectionSink;
+import eventhandler.Intersections;
+
+public class IntersectionsTest {
+
+	@Test
+	public void sinkSeesEveryIntersection() throws IOException {
+		String file = generate(600, 3000);
+		final Plane plane = new Plane(file);
+		final ArrayList<Intersection> found = new ArrayList<Intersection>();
+		plane.intersectionSink = new IntersectionSink() {
+			public void intersection(double x, double y, int lineId1,
+					int lineId2) {
+				assertEquals(x, plane.sweep.x, 0);
+				found.add(new Intersection(x, y, lineId1, lineId2));
+			}
+		};
+		while (!plane.events.isEmpty())
+			EventHandler.handleEvent(plane, plane.events.remove(), false);
+
+		assertEquals(plane.intersectionNo, found.size());
+		for (int i = 0; i < found.size(); i++) {
+			Intersection p = found.get(i);
+			assertTrue(i == 0 || found.get(i - 1).x <= p.x);
+			assertTrue(p.lineId1 != p.lineId2);
+			assertEquals(p.y, plane.lineStore.getY(p.lineId1, p.x), 0);
+			assertEquals(p.y, plane.lineStore.getY(p.lineId2, p.x),
+					1e-6 * (1 + Math.abs(p.y)));
+		}
+	}
+
+	@Test
+	public void iteratorAndSpliteratorAsSink() throws IOException {
+		String file = generate(600, 3000);
+		Plane plane = new Plane(file);
+		final ArrayList<Intersection> expected = new ArrayList<Intersection>();
+		plane.intersectionSink = new IntersectionSink() {
+			public void intersection(double x, double y, int lineId1,
+					int lineId2) {
+				expected.add(new Intersection(x, y, lineId1, lineId2));
+			}
+		};
+		while (!plane.events.isEmpty())
+			EventHandler.handleEvent(plane, plane.events.remove(), false);
+
+		Iterator<Intersection> actual = Intersections.iterator(new Plane(file));
+		for (Intersection e : expected) {
+			assertTrue(actual.hasNext());
+			Intersection a = actual.next();
+			assertEquals(e.x, a.x, 0);
+			assertEquals(e.y, a.y, 0);
+			assertEquals(e.lineId1, a.lineId1);
+			assertEquals(e.lineId2, a.lineId2);
+		}
+		assertFalse(actual.hasNext());
+
+		assertEquals(expected.size(), StreamSupport.stream(
+				Intersections.spliterator(new Plane(file)), false).count());
+	}
+
+	static String generate(int n, long k) throws IOException {
+		File file = File.createTempFile("intersections", ".txt");
+		file.deleteOnExit();
+		InputGenerator generator = new InputGenerator(n, n);
+		generator.k = k;
+		InputGenerator.write(file.getPath(), generator.generate(),
+				new String[] { "run" });
+		return file.getPath();
+	}
+}
@@ -0,0 +1,95 @@
+package eventHandling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import input.InputGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import plane.Plane;
+import basic_geometric_entities.Line;
+import eventhandler.EventHandler;
+import eventhandler.IntersectionSink;
+import eventhandler.PlaneEditor;
+
+public class PlaneEditorTest {
+
+	@Test
+	public void sameCountAsSweep() throws IOException {
+		InputGenerator generator = new InputGenerator(800, 17);
+		generator.k = 6000;
+		Line[] lines = generator.generate();
+
+		// Sweep most of the lines, then add the rest one by one.
+		Plane plane = sweep(Arrays.copyOf(lines, 700));
+		PlaneEditor editor = new PlaneEditor(plane);
+		final int[] reported = new int[2];
+		plane.intersectionSink = new IntersectionSink() {
+			public void intersection(double x, double y, int lineId1,
+					int lineId2) {
+				assertTrue(lineId1 < lineId2);
+				reported[0]++;
+			}
+		};
+		editor.retractions = new IntersectionSink() {
+			public void intersection(double x, double y, int lineId1,
+					int lineId2) {
+				reported[1]++;
+			}
+		};
+		int before = plane.intersectionNo;
+		for (int i = 700; i < lines.length; i++)
+			assertEquals(i, editor.add(new Line(lines[i])));
+		assertEquals(sweep(lines).intersectionNo, plane.intersectionNo);
+		assertEquals(plane.intersectionNo - before, reported[0]);
+		assertEquals(lines.length, plane.lines.size());
+
+		// Remove every seventh line.
+		ArrayList<Line> kept = new ArrayList<Line>();
+		before = plane.intersectionNo;
+		for (int i = 0; i < lines.length; i++) {
+			if (i % 7 == 3)
+				editor.remove(i);
+			else
+				kept.add(lines[i]);
+		}
+		assertTrue(editor.isRemoved(3));
+		assertEquals(sweep(kept.toArray(new Line[0])).intersectionNo,
+				plane.intersectionNo);
+		assertEquals(before - plane.intersectionNo, reported[1]);
+	}
+
+	@Test
+	public void rejectsBadEdits() throws IOException {
+		try {
+			new PlaneEditor(new Plane("input.txt"));
+			fail("edited before the sweep finished");
+		} catch (IllegalStateException e) {
+		}
+
+		PlaneEditor editor = new PlaneEditor(sweep(new InputGenerator(20, 1)
+				.generate()));
+		editor.remove(5);
+		try {
+			editor.remove(5);
+			fail("removed twice");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	static Plane sweep(Line[] lines) throws IOException {
+		File file = File.createTempFile("edited", ".txt");
+		file.deleteOnExit();
+		InputGenerator.write(file.getPath(), lines, new String[] { "run" });
+		Plane plane = new Plane(file.getPath());
+		while (!plane.events.isEmpty())
+			EventHandler.handleEvent(plane, plane.events.remove(), false);
+		return plane;
+	}
+}
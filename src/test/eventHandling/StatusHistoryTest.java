@@ -0,0 +1,77 @@
+package eventHandling;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import input.InputGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import plane.Plane;
+import red_black_tree.PersistentTree;
+import events.Event;
+import eventhandler.EventHandler;
+import eventhandler.StatusHistory;
+
+public class StatusHistoryTest {
+
+	@Test
+	public void everyVersionAsReplayed() throws IOException {
+		for (int seed = 0; seed < 6; seed++) {
+			File file = File.createTempFile("history", ".txt");
+			file.deleteOnExit();
+			InputGenerator generator = new InputGenerator(400, seed);
+			generator.k = 2000;
+			generator.degeneracy = (seed % 2 == 0) ? 0.3 : 0;
+			InputGenerator.write(file.getPath(), generator.generate(),
+					new String[] { "run" });
+
+			// The history keeps either status; replay it in the same one.
+			boolean arrays = seed >= 3;
+			Plane swept = new Plane(file.getPath());
+			if (arrays)
+				swept.useArrayStatus();
+			StatusHistory history = new StatusHistory(swept);
+			history.sweep();
+
+			// Replay, comparing the status after each event.
+			Plane plane = new Plane(file.getPath());
+			if (arrays)
+				plane.useArrayStatus();
+			ArrayList<Double> xs = new ArrayList<Double>();
+			for (int version = 1; !plane.events.isEmpty(); version++) {
+				Event event = plane.events.remove();
+				EventHandler.handleEvent(plane, event, false);
+				int[] expected = plane.statusIDs();
+				PersistentTree actual = history.root(version);
+				int[] ids = new int[PersistentTree.size(actual)];
+				PersistentTree.fillIDs(actual, ids, 0);
+				assertArrayEquals(expected, ids);
+				xs.add(event.x);
+			}
+			assertEquals(xs.size() + 1, history.versionNo());
+
+			// Between events, points above and below the lines.
+			for (int i = 1; i < xs.size(); i++) {
+				double x = (xs.get(i - 1) + xs.get(i)) / 2;
+				if (x == xs.get(i - 1))
+					continue;
+				int[] status = history.statusAt(x);
+				for (int j = 0; j <= status.length; j++) {
+					double y = (j == 0) ? -1e9 : plane.lineStore.getY(
+							status[j - 1], x) + 1e-12;
+					int below = (j == 0) ? -1 : status[j - 1];
+					int above = (j == status.length) ? -1 : status[j];
+					if (j > 0 && j < status.length
+							&& plane.lineStore.getY(status[j], x) <= y)
+						continue; // too close to tell apart
+					assertEquals(below, history.below(x, y));
+					assertEquals(above, history.above(x, y));
+				}
+			}
+		}
+	}
+}
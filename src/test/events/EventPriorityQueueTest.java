@@ -1,8 +1,19 @@
 package events;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
 import org.junit.Test;
 
 import plane.Plane;
+import basic_geometric_entities.Line;
+import basic_geometric_entities.LineStore;
 
 public class EventPriorityQueueTest {
 
@@ -13,4 +24,69 @@ public class EventPriorityQueueTest {
 		while (plane.events.size() > 0)
 			System.out.println(plane.events.remove().toString());
 	}
+
+	@Test
+	public void sharedXAndCancel() {
+		Line l0 = new Line(0, 0.0, 1.0, 0.0, -5.0, 5.0);
+		Line l1 = new Line(1, 0.0, -1.0, 0.0, -5.0, 5.0);
+		Line l2 = new Line(2, 0.0, 0.0, 1.0, -5.0, 5.0);
+		EventQueue events = new EventQueue(new Event());
+
+		// Distinct events sharing an x-coordinate are all kept.
+		assertTrue(events.add(new Event(1.0, EventType.INTERSECTION, l0, l2)));
+		assertTrue(events.add(new Event(1.0, EventType.INTERSECTION, l1, l2)));
+		assertTrue(events.add(new Event(1.0, EventType.START, l0)));
+		// The same pair at the same x is a duplicate, whatever the line order.
+		assertFalse(events.add(new Event(1.0, EventType.INTERSECTION, l2, l0)));
+		assertEquals(3, events.size());
+
+		Event second = new Event(3.0, EventType.INTERSECTION, l0, l2);
+		assertTrue(events.add(second));
+		assertEquals(2, events.cancel(2, 0));
+		assertEquals(2, events.size());
+
+		assertSame(EventType.START, events.remove().type);
+		assertEquals(1, events.remove().lowId());
+		assertTrue(events.isEmpty());
+	}
+
+	@Test
+	public void scheduledEndpointsInEventOrder() {
+		Random random = new Random(5);
+		for (int n : new int[] { 1, 10, 1000, 20000 }) {
+			// Random, sorted and tied endpoints.
+			for (int layout = 0; layout < 3; layout++) {
+				ArrayList<Line> lines = new ArrayList<Line>();
+				for (int i = 0; i < n; i++) {
+					double t1 = (layout == 0) ? random.nextDouble() * 20 - 10
+							: (layout == 1) ? i : random.nextInt(5) - 2;
+					lines.add(new Line(i, 0, 0, i, t1, t1
+							+ random.nextInt(3)));
+				}
+				TreeSet<Event> expected = new TreeSet<Event>(new Event());
+				for (Line l : lines) {
+					if (l.t1 > -3 && l.t1 <= 6)
+						expected.add(new Event(l.t1, EventType.START, l));
+					if (l.t2 > -3 && l.t2 <= 6)
+						expected.add(new Event(l.t2, EventType.END, l));
+				}
+
+				EventQueue events = new EventQueue(new Event());
+				events.scheduleEndpoints(new LineStore(lines), -3, 6);
+				// An intersection in between, as discovered by a sweep.
+				Event crossing = new Event(3, EventType.INTERSECTION,
+						lines.get(0), lines.get(n - 1));
+				expected.add(crossing);
+				events.add(crossing);
+
+				assertEquals(expected.size(), events.size());
+				for (Event e : expected) {
+					Event actual = events.remove();
+					assertEquals(0, e.compare(e, actual));
+					assertEquals(e.lineId, actual.lineId);
+				}
+				assertTrue(events.isEmpty());
+			}
+		}
+	}
 }
@@ -0,0 +1,72 @@
+package input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import basic_geometric_entities.Line;
+import eventhandler.Executor;
+
+public class BinaryInputTest {
+
+	@Test
+	public void sameLinesAsText() throws IOException {
+		InputGenerator generator = new InputGenerator(2000, 11);
+		generator.k = 5000;
+		String text = temporary(), binary = temporary();
+		InputGenerator.write(text, generator.generate(), new String[] {
+				"step", "step -p", "status", "run" });
+		BinaryInput.convert(text, binary);
+		assertFalse(BinaryInput.isBinary(text));
+		assertTrue(BinaryInput.isBinary(binary));
+
+		LineConstructor expected = new LineConstructor(text);
+		BinaryInput actual = new BinaryInput(binary);
+		assertEquals(expected.lineNo, actual.lineNo);
+		assertEquals(expected.lineNo, actual.lineStore.size);
+		for (Line l : expected.lines) {
+			int id = l.lineId;
+			assertEquals(Double.doubleToRawLongBits(l.a),
+					Double.doubleToRawLongBits(actual.lineStore.a[id]));
+			assertEquals(Double.doubleToRawLongBits(l.b),
+					Double.doubleToRawLongBits(actual.lineStore.b[id]));
+			assertEquals(Double.doubleToRawLongBits(l.c),
+					Double.doubleToRawLongBits(actual.lineStore.c[id]));
+			assertEquals(Double.doubleToRawLongBits(l.t1),
+					Double.doubleToRawLongBits(actual.lineStore.t1[id]));
+			assertEquals(Double.doubleToRawLongBits(l.t2),
+					Double.doubleToRawLongBits(actual.lineStore.t2[id]));
+		}
+		assertEquals(new CommandConstructor(expected.inputPosition).commands,
+				actual.commands);
+	}
+
+	@Test
+	public void sameOutputAsText() throws IOException {
+		String binary = temporary();
+		BinaryInput.convert("input.txt", binary);
+		assertEquals(output("input.txt"), output(binary));
+	}
+
+	static String output(String file) {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		Executor executor = new Executor(file);
+		executor.plane.out = new PrintStream(buffer);
+		executor.executeCommands();
+		executor.plane.out.flush();
+		return buffer.toString();
+	}
+
+	static String temporary() throws IOException {
+		File file = File.createTempFile("binary", ".txt");
+		file.deleteOnExit();
+		return file.getPath();
+	}
+}
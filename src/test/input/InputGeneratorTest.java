@@ -0,0 +1,110 @@
+package input;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import plane.Plane;
+import utilities.IntersectionChecker;
+import basic_geometric_entities.Line;
+import eventhandler.EventHandler;
+
+public class InputGeneratorTest {
+
+	@Test
+	public void sameSeedSameInput() throws IOException {
+		InputGenerator generator = new InputGenerator(500, 3);
+		generator.k = 1000;
+		generator.degeneracy = 0.1;
+		String first = write(generator.generate()), second = write(generator
+				.generate());
+		assertArrayEquals(Files.readAllBytes(new File(first).toPath()),
+				Files.readAllBytes(new File(second).toPath()));
+	}
+
+	@Test
+	public void reachesTargetIntersections() throws IOException {
+		InputGenerator generator = new InputGenerator(2000, 3);
+		generator.k = 20000;
+		int found = sweep(write(generator.generate()));
+		System.out.println("target 20000, found " + found);
+		assertTrue(Math.abs(found - 20000) < 2000);
+	}
+
+	@Test
+	public void degenerateInputs() throws IOException {
+		// Every curve starts at an endpoint or at the x of an endpoint of
+		// another one.
+		for (int seed = 0; seed < 20; seed++) {
+			InputGenerator generator = new InputGenerator(30, seed);
+			generator.spread = 20;
+			generator.span = 20;
+			generator.degeneracy = 1;
+			Line[] lines = generator.generate();
+			assertEquals(bruteForce(lines), sweep(write(lines)));
+		}
+	}
+
+	@Test
+	public void usageOnBadArguments() throws IOException {
+		File file = File.createTempFile("generated", ".txt");
+		file.delete();
+		String[][] bad = { { "-n" }, { "-n", "100", "-o" },
+				{ "-n", "100", "-spread", "0" }, { "-k", "100" } };
+		PrintStream err = System.err;
+		try {
+			for (String[] args : bad) {
+				ByteArrayOutputStream printed = new ByteArrayOutputStream();
+				System.setErr(new PrintStream(printed, true));
+				String[] withOutput = new String[args.length + 2];
+				withOutput[0] = "-o";
+				withOutput[1] = file.getPath();
+				System.arraycopy(args, 0, withOutput, 2, args.length);
+				InputGenerator.main(withOutput);
+				assertTrue(printed.toString().startsWith("usage:"));
+				assertFalse(file.exists());
+			}
+		} finally {
+			System.setErr(err);
+		}
+	}
+
+	// Intersections past the common start of each pair, one by one.
+	static int bruteForce(Line[] lines) {
+		double[] xs = new double[2];
+		int count = 0;
+		for (int i = 0; i < lines.length; i++)
+			for (int j = i + 1; j < lines.length; j++) {
+				int found = IntersectionChecker.intersections(lines[i],
+						lines[j], xs);
+				double from = Math.max(lines[i].t1, lines[j].t1);
+				for (int r = 0; r < found; r++)
+					if (xs[r] - from > 1e-9 * Math.max(1, Math.abs(xs[r])))
+						count++;
+			}
+		return count;
+	}
+
+	static int sweep(String input) {
+		Plane plane = new Plane(input);
+		while (!plane.events.isEmpty())
+			EventHandler.handleEvent(plane, plane.events.remove(), false);
+		return plane.intersectionNo;
+	}
+
+	static String write(Line[] lines) throws IOException {
+		File file = File.createTempFile("generated", ".txt");
+		file.deleteOnExit();
+		InputGenerator.write(file.getPath(), lines, new String[] { "run" });
+		return file.getPath();
+	}
+}
@@ -0,0 +1,123 @@
+package input;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.Scanner;
+
+import org.junit.Test;
+
+import basic_geometric_entities.Line;
+
+public class InputParserTest {
+
+	@Test
+	public void doublesAsParseDouble() {
+		Random random = new Random(1);
+		for (int i = 0; i < 200000; i++) {
+			double d = Double.longBitsToDouble(random.nextLong());
+			if (Double.isNaN(d) || Double.isInfinite(d))
+				continue;
+			check(Double.toString(d));
+			check(String.format("%.6f", random.nextGaussian() * 1000));
+			check(random.nextInt(100000) + "." + random.nextInt(1000) + "e"
+					+ (random.nextInt(640) - 320));
+		}
+		for (String s : new String[] { "0", "-0", "+5", ".5", "5.",
+				"1.7976931348623157e308", "1.8e308", "4.9e-324", "1e-400",
+				"2.2250738585072011e-308", "9007199254740993",
+				"18446744073709551615", "123456789012345678901234567890" })
+			check(s);
+	}
+
+	@Test
+	public void sameAsScanner() throws IOException {
+		InputGenerator generator = new InputGenerator(3000, 5);
+		generator.k = 1000;
+		String file = write(generator.generate(), "\n");
+
+		Scanner scanner = new Scanner(new FileReader(file));
+		LineConstructor constructor = new LineConstructor(file);
+		assertEquals(scanner.nextInt(), constructor.lineNo);
+		for (Line l : constructor.lines) {
+			assertEquals(scanner.nextDouble(), l.a, 0);
+			assertEquals(scanner.nextDouble(), l.b, 0);
+			assertEquals(scanner.nextDouble(), l.c, 0);
+			assertEquals(scanner.nextDouble(), l.t1, 0);
+			assertEquals(scanner.nextDouble(), l.t2, 0);
+		}
+		while (scanner.hasNextLine())
+			assertEquals(scanner.nextLine(), constructor.inputPosition.nextLine());
+		assertEquals(false, constructor.inputPosition.hasNextLine());
+		scanner.close();
+	}
+
+	@Test
+	public void parallelSameAsSequential() throws IOException {
+		InputGenerator generator = new InputGenerator(5000, 7);
+		generator.k = 1000;
+		Line[] lines = generator.generate();
+		for (String newline : new String[] { "\n", "\r\n" }) {
+			String file = write(lines, newline);
+			for (int threads = 1; threads <= 8; threads++)
+				assertSame(new LineConstructor(file, 1), new LineConstructor(
+						file, threads));
+		}
+
+		// Records spread over lines are read one number after the other.
+		File file = File.createTempFile("parsed", ".txt");
+		file.deleteOnExit();
+		PrintWriter out = new PrintWriter(file);
+		out.print("3\n1 0 0\n-2 2.5\n-1 0 4 -2.5 2\n0 0 3 0 3 run\nstep\nrun");
+		out.close();
+		LineConstructor constructor = new LineConstructor(file.getPath(), 4);
+		assertEquals(3, constructor.lines.size());
+		assertEquals(" run", constructor.inputPosition.nextLine());
+		assertSame(new LineConstructor(file.getPath(), 1), new LineConstructor(
+				file.getPath(), 4));
+	}
+
+	static void assertSame(LineConstructor expected, LineConstructor actual) {
+		assertEquals(expected.lineNo, actual.lineNo);
+		assertEquals(expected.lines.size(), actual.lines.size());
+		for (int i = 0; i < expected.lines.size(); i++) {
+			Line e = expected.lines.get(i), a = actual.lines.get(i);
+			assertEquals(i, a.lineId);
+			assertEquals(e.a, a.a, 0);
+			assertEquals(e.b, a.b, 0);
+			assertEquals(e.c, a.c, 0);
+			assertEquals(e.t1, a.t1, 0);
+			assertEquals(e.t2, a.t2, 0);
+		}
+		assertEquals(new CommandConstructor(expected.inputPosition).commands,
+				new CommandConstructor(actual.inputPosition).commands);
+	}
+
+	static void check(String s) {
+		byte[] bytes = s.getBytes();
+		double parsed = DoubleParser.parse(ByteBuffer.wrap(bytes), 0,
+				bytes.length);
+		assertEquals(s, Double.doubleToRawLongBits(Double.parseDouble(s)),
+				Double.doubleToRawLongBits(parsed));
+	}
+
+	static String write(Line[] lines, String newline) throws IOException {
+		File file = File.createTempFile("parsed", ".txt");
+		file.deleteOnExit();
+		PrintWriter out = new PrintWriter(file);
+		out.print(lines.length + newline);
+		for (Line l : lines)
+			out.print(l.a + " " + l.b + " " + l.c + " " + l.t1 + " " + l.t2
+					+ newline);
+		for (String command : new String[] { "step", "step -p", "status",
+				"run" })
+			out.print(command + newline);
+		out.close();
+		return file.getPath();
+	}
+}
@@ -0,0 +1,233 @@
+package output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import input.InputGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import basic_geometric_entities.Line;
+import events.Event;
+import eventhandler.EventHandler;
+import eventhandler.Executor;
+
+public class OutputSinkTest {
+
+	@Test
+	public void fixedPointAsFormatter() {
+		Random random = new Random(3);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		TextSink sink = new TextSink(bytes, 128);
+		for (int i = 0; i < 200000; i++) {
+			double x;
+			switch (i % 4) {
+			case 0:
+				x = (random.nextDouble() - 0.5) * 2000;
+				break;
+			case 1: // Ties of two decimals, and their neighbours.
+				x = Math.scalb(random.nextInt(1 << 16) - (1 << 15), -3)
+						+ (random.nextInt(3) - 1) * 1e-12;
+				break;
+			case 2:
+				x = (random.nextInt(2000001) - 1000000) / 1000.0;
+				break;
+			default:
+				x = Double.longBitsToDouble(random.nextLong());
+			}
+			check(sink, bytes, x);
+		}
+		for (double x : new double[] { 0.0, -0.0, 0.005, -0.005, 0.125,
+				1.005, 2.675, 999.995, 1e9, -1e9, 1e300, Double.MIN_VALUE,
+				Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY })
+			check(sink, bytes, x);
+	}
+
+	@Test
+	public void textSameAsPrintf() throws IOException {
+		String input = generate();
+		byte[] expected = run(input, new PrintfSink());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Executor executor = new Executor(input);
+		executor.plane.out = new PrintStream(bytes);
+		executor.executeCommands();
+		assertArrayEquals(expected, bytes.toByteArray());
+
+		// Small buffers, so that records are split between writes.
+		bytes = new ByteArrayOutputStream();
+		assertArrayEquals(expected,
+				run(input, new TextSink(bytes, 128), bytes));
+
+		File file = File.createTempFile("output", ".txt");
+		file.deleteOnExit();
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		FileChannel channel = out.getChannel();
+		executor = new Executor(input);
+		executor.plane.outputSink = new ChannelSink(channel, 200);
+		executor.executeCommands();
+		out.close();
+		assertArrayEquals(expected, Files.readAllBytes(file.toPath()));
+	}
+
+	@Test
+	public void binaryRecords() throws IOException {
+		String input = generate();
+		PrintfSink expected = new PrintfSink();
+		run(input, expected);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] records = run(input, new BinarySink(bytes, 100), bytes);
+		ByteBuffer buffer = ByteBuffer.wrap(records).order(
+				ByteOrder.LITTLE_ENDIAN);
+		PrintfSink decoded = new PrintfSink();
+		while (buffer.hasRemaining()) {
+			switch (buffer.get()) {
+			case BinarySink.EVENT:
+				decoded.event((char) buffer.get(), buffer.getDouble(),
+						buffer.getInt());
+				break;
+			case BinarySink.STATUS:
+				int lineNo = buffer.getInt();
+				int[] ids = new int[buffer.getInt()];
+				for (int i = 0; i < ids.length; i++)
+					ids[i] = buffer.getInt();
+				decoded.statusStart(lineNo);
+				decoded.statusIds(ids, ids.length);
+				decoded.statusEnd();
+				break;
+			case BinarySink.SUMMARY:
+				decoded.summary(buffer.getInt(), buffer.getInt());
+				break;
+			case BinarySink.NO_MORE_EVENTS:
+				decoded.noMoreEvents();
+				break;
+			default:
+				throw new AssertionError("unknown record");
+			}
+		}
+		assertArrayEquals(expected.bytes.toByteArray(),
+				decoded.bytes.toByteArray());
+	}
+
+	@Test
+	public void streamedStatus() throws IOException {
+		// Statuses larger than the part they are streamed in.
+		File file = File.createTempFile("status", ".txt");
+		file.deleteOnExit();
+		Line[] lines = new Line[600];
+		for (int i = 0; i < lines.length; i++)
+			lines[i] = new Line(i, 0, 0.001 * (i % 7), i, -1 - i, 1);
+		String[] commands = new String[lines.length + 1];
+		Arrays.fill(commands, "step");
+		commands[lines.length] = "status";
+		InputGenerator.write(file.getPath(), lines, commands);
+		byte[] expected = run(file.getPath(), new PrintfSink());
+
+		for (boolean arrays : new boolean[] { false, true }) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			Executor executor = new Executor(file.getPath());
+			if (arrays)
+				executor.plane.useArrayStatus();
+			executor.plane.out = new PrintStream(bytes);
+			executor.executeCommands();
+			assertTrue(executor.plane.statusSize() > 256);
+			assertArrayEquals(expected, bytes.toByteArray());
+
+			int[] status = executor.plane.statusIDs();
+			for (int rank = 0; rank < status.length; rank++) {
+				assertEquals(status[rank], executor.plane.statusLine(rank));
+				assertEquals(rank, executor.plane.linesBelow(status[rank]));
+			}
+			Event end = executor.plane.events.remove();
+			EventHandler.handleEvent(executor.plane, end, false);
+			assertEquals(-1, executor.plane.linesBelow(end.lineId));
+		}
+	}
+
+	// The output as the commands printed it before the sinks.
+	static class PrintfSink implements OutputSink {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(this.bytes);
+
+		public void event(char type, double x, int newIntersections) {
+			this.out.printf("event: %1c %6.2f %1d\n", type, x,
+					newIntersections);
+		}
+
+		public void statusStart(int lineNo) {
+			this.out.printf("status: %d:", lineNo);
+		}
+
+		public void statusIds(int[] lineIds, int count) {
+			for (int i = 0; i < count; i++)
+				this.out.printf(" %d", lineIds[i]);
+		}
+
+		public void statusEnd() {
+			this.out.println();
+		}
+
+		public void summary(int segments, int intersections) {
+			this.out.printf("summary: %d segments , %d intersections\n",
+					segments, intersections);
+		}
+
+		public void noMoreEvents() {
+			this.out.printf("error: no more events\n");
+		}
+
+		public void flush() {
+			this.out.flush();
+		}
+	}
+
+	static byte[] run(String input, PrintfSink sink) {
+		Executor executor = new Executor(input);
+		executor.plane.outputSink = sink;
+		executor.executeCommands();
+		return sink.bytes.toByteArray();
+	}
+
+	static byte[] run(String input, OutputSink sink,
+			ByteArrayOutputStream bytes) {
+		Executor executor = new Executor(input);
+		executor.plane.outputSink = sink;
+		executor.executeCommands();
+		return bytes.toByteArray();
+	}
+
+	static String generate() throws IOException {
+		File file = File.createTempFile("output", ".txt");
+		file.deleteOnExit();
+		InputGenerator generator = new InputGenerator(300, 13);
+		generator.k = 1000;
+		String[] commands = new String[2000];
+		for (int i = 0; i < commands.length; i++)
+			commands[i] = (i % 50 == 49) ? "status" : "step -p";
+		commands[commands.length - 2] = "run";
+		commands[commands.length - 1] = "step -p";
+		InputGenerator.write(file.getPath(), generator.generate(), commands);
+		return file.getPath();
+	}
+
+	static void check(TextSink sink, ByteArrayOutputStream bytes, double x) {
+		bytes.reset();
+		sink.appendFixed(x);
+		sink.flush();
+		assertEquals(Double.toString(x), String.format("%6.2f", x),
+				bytes.toString());
+	}
+}
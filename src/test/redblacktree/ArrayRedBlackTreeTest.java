@@ -0,0 +1,72 @@
+package redblacktree;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import red_black_tree.ArrayRedBlackTree;
+import basic_geometric_entities.LineStore;
+import basic_geometric_entities.SweepPosition;
+
+public class ArrayRedBlackTreeTest {
+
+	@Test
+	public void staysOrderedAndBalanced() {
+		// Horizontal lines, ordered by c at any x.
+		Random random = new Random(5);
+		LineStore store = new LineStore(1000);
+		for (int id = 0; id < 1000; id++)
+			store.set(id, 0, 0, random.nextInt(1 << 20) * 1000 + id, -1, 1);
+		ArrayRedBlackTree tree = new ArrayRedBlackTree(store,
+				new SweepPosition(0), 4);
+
+		TreeMap<Double, Integer> expected = new TreeMap<Double, Integer>();
+		for (int step = 0; step < 20000; step++) {
+			int id = random.nextInt(1000);
+			if (expected.containsValue(id)) {
+				tree.remove(tree.node(id));
+				expected.remove(store.c[id]);
+				assertEquals(ArrayRedBlackTree.NIL, tree.node(id));
+			} else {
+				tree.insert(id);
+				expected.put(store.c[id], id);
+			}
+			assertTrue(tree.blackHeight(tree.root) >= 0);
+			assertEquals(expected.size(), tree.size());
+		}
+		assertArrayEquals(ids(expected), ids(tree));
+		int[] ids = ids(tree);
+		for (int rank = 0; rank < ids.length; rank++) {
+			assertEquals(ids[rank], tree.lineId[tree.select(rank)]);
+			assertEquals(rank, tree.rank(tree.node(ids[rank])));
+		}
+
+		// Neighbours, and their lines exchanged in place.
+		int first = tree.first(), second = tree.successor(first);
+		assertEquals(first, tree.predecessor(second));
+		int id1 = tree.lineId[first], id2 = tree.lineId[second];
+		tree.swap(first, second);
+		assertEquals(second, tree.node(id1));
+		assertEquals(first, tree.node(id2));
+		assertTrue(tree.blackHeight(tree.root) >= 0);
+	}
+
+	static int[] ids(TreeMap<Double, Integer> map) {
+		int[] ids = new int[map.size()];
+		int next = 0;
+		for (int id : map.values())
+			ids[next++] = id;
+		return ids;
+	}
+
+	static int[] ids(ArrayRedBlackTree tree) {
+		int[] ids = new int[tree.size()];
+		tree.fillIDs(ids, 0);
+		return ids;
+	}
+}
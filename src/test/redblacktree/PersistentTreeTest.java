@@ -0,0 +1,73 @@
+package redblacktree;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import red_black_tree.PersistentTree;
+
+public class PersistentTreeTest {
+
+	// Ids ordered by a shuffled key, unlike their own order.
+	static int[] keys = new int[1000];
+	static PersistentTree.Order byKey = new PersistentTree.Order() {
+		public int compare(int lineId1, int lineId2) {
+			return keys[lineId1] - keys[lineId2];
+		}
+	};
+
+	@Test
+	public void versionsStayValid() {
+		Random random = new Random(9);
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = random.nextInt(1 << 20) * keys.length + i;
+
+		ArrayList<PersistentTree> versions = new ArrayList<PersistentTree>();
+		ArrayList<int[]> contents = new ArrayList<int[]>();
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+		PersistentTree tree = null;
+		for (int step = 0; step < 20000; step++) {
+			int id = random.nextInt(keys.length);
+			if (expected.contains(keys[id])) {
+				tree = PersistentTree.delete(tree, id, byKey);
+				expected.remove(keys[id]);
+			} else {
+				tree = PersistentTree.insert(tree, id, byKey);
+				expected.add(keys[id]);
+			}
+			assertTrue(PersistentTree.blackHeight(tree) >= 0);
+			assertEquals(expected.size(), PersistentTree.size(tree));
+			if (step % 97 == 0) {
+				versions.add(tree);
+				contents.add(ids(tree));
+			}
+		}
+
+		for (int v = 0; v < versions.size(); v++)
+			assertArrayEquals(contents.get(v), ids(versions.get(v)));
+
+		// Positions and replacement by position.
+		int[] ids = ids(tree);
+		for (int rank = 0; rank < ids.length; rank++) {
+			assertEquals(ids[rank], PersistentTree.get(tree, rank));
+			assertEquals(rank, PersistentTree.rank(tree, ids[rank], byKey));
+		}
+		PersistentTree replaced = PersistentTree.set(tree, 3, -1);
+		assertEquals(-1, PersistentTree.get(replaced, 3));
+		assertEquals(ids[3], PersistentTree.get(tree, 3));
+	}
+
+	static int[] ids(PersistentTree tree) {
+		int[] ids = new int[PersistentTree.size(tree)];
+		PersistentTree.fillIDs(tree, ids, 0);
+		for (int i = 1; i < ids.length; i++)
+			assertTrue(keys[ids[i - 1]] < keys[ids[i]]);
+		return ids;
+	}
+}
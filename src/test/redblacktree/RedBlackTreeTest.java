@@ -1,9 +1,19 @@
 package redblacktree;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+import java.util.TreeMap;
+
 import org.junit.Test;
 
 import plane.Plane;
+import red_black_tree.RedBlackTree;
 import basic_geometric_entities.LineInstance;
+import basic_geometric_entities.LineStore;
+import basic_geometric_entities.SweepPosition;
 
 public class RedBlackTreeTest {
 
@@ -38,6 +48,131 @@ public class RedBlackTreeTest {
 		
 		plane.printSweepLine();
 	}
+
+	@Test
+	public void successorPredecessor() {
+		System.out.println("-----------successorPredecessor------------");
+		RedBlackTree root = new RedBlackTree();
+		LineInstance[] lines = new LineInstance[20];
+		for (int i = 0; i < lines.length; i++) {
+			// Insert out of order so that rotations take place.
+			int y = (i * 7) % lines.length;
+			lines[y] = new LineInstance(y, 0.0, 0.0, (double) y, -1.0, 1.0, 0.0);
+			root = root.add(lines[y]);
+		}
+
+		for (int i = 0; i < lines.length; i++) {
+			LineInstance predecessor = root.getPredecessorLine(root, lines[i]);
+			LineInstance successor = root.getSuccessorLine(root, lines[i]);
+			if (i == 0)
+				assertNull(predecessor);
+			else
+				assertEquals(i - 1, predecessor.lineId);
+			if (i == lines.length - 1)
+				assertNull(successor);
+			else
+				assertEquals(i + 1, successor.lineId);
+		}
+	}
+
+	@Test
+	public void indexById() {
+		System.out.println("-----------indexById------------");
+		RedBlackTree root = new RedBlackTree(20);
+		LineInstance[] lines = new LineInstance[20];
+		for (int i = 0; i < lines.length; i++) {
+			int y = (i * 7) % lines.length;
+			lines[y] = new LineInstance(y, 0.0, 0.0, (double) y, -1.0, 1.0, 0.0);
+			root = root.add(lines[y]);
+		}
+		for (int i = 0; i < lines.length; i += 3)
+			root = root.removeByID(i, root);
+
+		for (int i = 0; i < lines.length; i++) {
+			if (i % 3 == 0)
+				assertNull(root.locateByID(i));
+			else
+				assertSame(lines[i], root.locateByID(i).value);
+		}
+
+		RedBlackTree one = root.locateByID(1), two = root.locateByID(2);
+		one.swapValues(two);
+		assertSame(two, root.locateByID(1));
+		assertSame(one, root.locateByID(2));
+	}
+
+	@Test
+	public void orderStatistics() {
+		System.out.println("-----------orderStatistics------------");
+		Random random = new Random(3);
+		RedBlackTree root = new RedBlackTree(500);
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		int[] keys = new int[500];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = random.nextInt(1 << 20) * keys.length + i;
+		for (int step = 0; step < 5000; step++) {
+			int id = random.nextInt(keys.length);
+			if (expected.containsKey(keys[id])) {
+				root = root.removeByID(id, root);
+				expected.remove(keys[id]);
+			} else {
+				root = root.root().add(new LineInstance(id, 0.0, 0.0,
+						(double) keys[id], -1.0, 1.0, 0.0));
+				expected.put(keys[id], id);
+			}
+			root = root.root();
+			assertEquals(expected.size(), root.countTree(root));
+			assertEquals(expected.size(), RedBlackTree.countTreeRec(root));
+		}
+
+		int rank = 0;
+		for (int id : expected.values()) {
+			assertEquals(id, root.select(rank).value.lineId);
+			assertEquals(rank, root.locateByID(id).rank());
+			rank++;
+		}
+	}
+
+	@Test
+	public void keyCachedPerSweepPosition() {
+		System.out.println("-----------keyCachedPerSweepPosition------------");
+		LineStore store = new LineStore(2);
+		store.set(0, 1.0, 0.0, 0.0, -10.0, 10.0);
+		store.set(1, 0.0, 0.0, 1.0, -10.0, 10.0);
+		SweepPosition sweep = new SweepPosition(0.0);
+		LineInstance parabola = new LineInstance(store, 0, sweep);
+		LineInstance flat = new LineInstance(store, 1, sweep);
+		assertEquals(-1, parabola.compareAt(flat, sweep.x));
+
+		// Evaluated once at an x: a change of the store shows only once the
+		// sweep has moved on.
+		store.c[0] = 5.0;
+		assertEquals(0.0, parabola.yAt(sweep.x), 0.0);
+		assertEquals(-1, parabola.compareAt(flat, sweep.x));
+		sweep.x = 2.0;
+		assertEquals(9.0, parabola.yAt(sweep.x), 0.0);
+		assertEquals(1, parabola.compareAt(flat, sweep.x));
+		assertEquals(-1, flat.compareAt(parabola, sweep.x));
+		assertEquals(store.getY(1, 2.0), flat.currentY, 0.0);
+	}
+
+	@Test
+	public void ownStoreOfOneRow() {
+		System.out.println("-----------ownStoreOfOneRow------------");
+		// Large ids cost no more than small ones.
+		LineInstance line = new LineInstance(50000000, 1.0, 0.0, 2.0, -1.0,
+				1.0, 1.0);
+		assertEquals(1, line.store.a.length);
+		assertEquals(3.0, line.currentY, 0.0);
+		assertEquals(50000000, line.getLine().lineId);
+		assertEquals(2.0, line.getLine().c, 0.0);
+
+		LineInstance other = new LineInstance(7, 0.0, 0.0, 2.0, -1.0, 1.0,
+				0.0);
+		assertEquals(1, line.compareAt(other, 0.0));
+		assertEquals(-1, other.compareAt(line, 0.0));
+		assertEquals(-1, other.compareAt(line, 1.0));
+	}
 //
 //	@Test
 //	public void getSuccessor() {
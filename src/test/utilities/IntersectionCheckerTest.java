@@ -0,0 +1,89 @@
+package utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import basic_geometric_entities.Line;
+
+public class IntersectionCheckerTest {
+
+	static final double DELTA = 1e-9;
+
+	@Test
+	public void straightLines() {
+		double[] xs = new double[2];
+		Line l0 = new Line(0, 0, 1, 0, -5, 5), l1 = new Line(1, 0, -1, 2, -5, 5);
+		assertEquals(1, IntersectionChecker.intersections(l0, l1, xs));
+		assertEquals(1, xs[0], DELTA);
+
+		// Parallel.
+		Line l2 = new Line(2, 0, 1, 3, -5, 5);
+		assertEquals(0, IntersectionChecker.intersections(l0, l2, xs));
+		// Out of range of one of them.
+		Line l3 = new Line(3, 0, -1, 2, 2, 5);
+		assertEquals(0, IntersectionChecker.intersections(l0, l3, xs));
+	}
+
+	@Test
+	public void quadraticLines() {
+		double[] xs = new double[2];
+		// x^2 - 1 and 1 - x^2 meet at -1 and 1.
+		Line l0 = new Line(0, 1, 0, -1, -5, 5), l1 = new Line(1, -1, 0, 1, -5, 5);
+		assertEquals(2, IntersectionChecker.intersections(l1, l0, xs));
+		assertEquals(-1, xs[0], DELTA);
+		assertEquals(1, xs[1], DELTA);
+
+		// Only one of them in range.
+		Line l2 = new Line(2, -1, 0, 1, 0, 5);
+		assertEquals(1, IntersectionChecker.intersections(l0, l2, xs));
+		assertEquals(1, xs[0], DELTA);
+
+		// Tangent: x^2 and 0 meet once.
+		Line l3 = new Line(3, 1, 0, 0, -5, 5), l4 = new Line(4, 0, 0, 0, -5, 5);
+		assertEquals(1, IntersectionChecker.intersections(l3, l4, xs));
+		assertEquals(0, xs[0], DELTA);
+	}
+
+	@Test
+	public void mixedLines() {
+		double[] xs = new double[2];
+		// x^2 and x + 2 meet at -1 and 2.
+		Line l0 = new Line(0, 1, 0, 0, -5, 5), l1 = new Line(1, 0, 1, 2, -5, 5);
+		assertEquals(2, IntersectionChecker.intersections(l0, l1, xs));
+		assertEquals(-1, xs[0], DELTA);
+		assertEquals(2, xs[1], DELTA);
+
+		Pair points = IntersectionChecker.areIntersectingAt(l0, l1);
+		assertEquals(-1, points.point1.x, DELTA);
+		assertEquals(1, points.point1.y, DELTA);
+		assertEquals(2, points.point2.x, DELTA);
+		assertEquals(4, points.point2.y, DELTA);
+
+		// No intersection.
+		Line l2 = new Line(2, 0, 0, -1, -5, 5);
+		assertEquals(0, IntersectionChecker.intersections(l0, l2, xs));
+		assertNull(IntersectionChecker.areIntersectingAt(l0, l2));
+	}
+
+	@Test
+	public void smallRootIsAccurate() {
+		double[] xs = new double[2];
+		// x^2 + 1e8 x + 1 = 0: the textbook formula loses the root near
+		// -1e-8 to cancellation.
+		Line l0 = new Line(0, 1, 1e8, 1, -1, 1), l1 = new Line(1, 0, 0, 0, -1, 1);
+		assertEquals(1, IntersectionChecker.intersections(l0, l1, xs));
+		assertEquals(-1e-8, xs[0], 1e-20);
+	}
+
+	@Test
+	public void pairOrderDoesNotMatter() {
+		double[] xs = new double[2], ys = new double[2];
+		Line l0 = new Line(0, 0.3, -0.7, 0.1, -5, 5), l1 = new Line(1, -0.1, 0.2, 0.9, -5, 5);
+		int found = IntersectionChecker.intersections(l0, l1, xs);
+		assertEquals(found, IntersectionChecker.intersections(l1, l0, ys));
+		for (int i = 0; i < found; i++)
+			assertEquals(Double.doubleToLongBits(xs[i]), Double.doubleToLongBits(ys[i]));
+	}
+}